@@ -2,15 +2,11 @@ package com.github.thecoldwine.sigrun.common;
 
 import java.io.File;
 import java.io.FileOutputStream;
-import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
-import java.util.ArrayList;
-import java.util.List;
 
-import com.github.thecoldwine.sigrun.common.ext.Block;
-import com.github.thecoldwine.sigrun.common.ext.BlockFile;
+import com.github.thecoldwine.sigrun.common.ext.MappedBinFile;
 import com.github.thecoldwine.sigrun.serialization.BinaryHeaderFormat;
 import com.github.thecoldwine.sigrun.serialization.BinaryHeaderReader;
 import com.github.thecoldwine.sigrun.serialization.TextHeaderReader;
@@ -36,51 +32,23 @@ public class Repack {
 	
 	public void example() throws Exception{
 
-		BlockFile bf = BlockFile.open(
+		MappedBinFile bf = MappedBinFile.open(
 				new File("d:\\georadarData\\Greenland\\2018-07-04-15-27-03-gpr-shift.sgy"));
 		
-		Block txtHdrBlock = new Block(0, TextHeader.TEXT_HEADER_SIZE);
-		Block binHdrBlock = new Block(txtHdrBlock, BinaryHeader.BIN_HEADER_LENGTH);
-		
-		BinaryHeader binaryHeader = binaryHeaderReader.read(binHdrBlock.read(bf).array());
-		
-		Block lastBlock = binHdrBlock; 
-		
-		List<Block> blocks = new ArrayList<>();
-		
-		try {
-			do {
-				Block traceHdrBlock = new Block(lastBlock, 
-						TraceHeader.TRACE_HEADER_LENGTH);
-		        TraceHeader header = traceHeaderReader.read(traceHdrBlock.read(bf).array());
-		        int dataLength = binaryHeader.getDataSampleCode().getSize() 
-		        		* header.getNumberOfSamples();
-				
-		        Block traceDataBlock = new Block(traceHdrBlock, dataLength);
-		        
-		        blocks.add(traceHdrBlock);
-		        blocks.add(traceDataBlock);
-		        
-		        lastBlock = traceDataBlock;
-		        
-			} while (lastBlock != null);
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-		
 		FileOutputStream fos = new FileOutputStream("d:\\georadarData\\created.sgy");
 		FileChannel writechan = fos.getChannel();
 		
-		writechan.write(ByteBuffer.wrap(txtHdrBlock.read(bf).array()));
-		writechan.write(ByteBuffer.wrap(binHdrBlock.read(bf).array()));
+		writechan.write(ByteBuffer.wrap(bf.getTxtHdr()));
+		writechan.write(ByteBuffer.wrap(bf.getBinHdr()));
 		
-		for (int i = 540; i < blocks.size() - 550; i++) {
-			Block block = blocks.get(i);
-			writechan.write(ByteBuffer.wrap(block.read(bf).array()));
+		for (int i = 270; i < bf.numTraces() - 275; i++) {
+			writechan.write(bf.getTraceHeader(i));
+			writechan.write(bf.getTraceData(i));
 		}
 		
 		writechan.close();
 		fos.close();
+		bf.close();
 	}
 	
 }
@@ -4,13 +4,18 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import com.ugcs.gprvisualizer.app.AppContext;
@@ -21,15 +26,21 @@ import org.slf4j.LoggerFactory;
 
 import com.ugcs.gprvisualizer.app.parcers.GeoCoordinates;
 import com.ugcs.gprvisualizer.app.parcers.GeoData;
+import com.ugcs.gprvisualizer.app.parcers.SensorTable;
 import com.ugcs.gprvisualizer.app.parcers.csv.CSVParsersFactory;
 import com.ugcs.gprvisualizer.app.parcers.csv.CsvParser;
+import com.ugcs.gprvisualizer.app.parcers.csv.LinePatcher;
 import com.ugcs.gprvisualizer.app.yaml.FileTemplates;
 import com.ugcs.gprvisualizer.app.yaml.data.SensorData;
+import com.ugcs.gprvisualizer.utils.Check;
 
 public class CsvFile extends SgyFile {
 
 	private static final Logger log = LoggerFactory.getLogger(CsvFile.class.getName());
 
+    // buffer size of the saved file streams
+    private static final int IO_BUFFER_SIZE = 1 << 20;
+
     private List<GeoData> geoData = new ArrayList<>();
 
     @Nullable
@@ -118,22 +129,17 @@ public class CsvFile extends SgyFile {
 			Path inputFile = getFile().toPath();
         	Path tempFile = file.toPath();
 
-            var foundPalces = getAuxElements().stream().filter(bo -> bo instanceof FoundPlace).map(bo -> ((FoundPlace) bo).getTraceIndex()).collect(Collectors.toSet());
-            for (int i = 0; i < geoData.size(); i++) {
-                GeoData gd = geoData.get(i);
-                gd.setSensorValue(GeoData.Semantic.MARK.getName(), gd.isMarked() ? 1 : 0);
-                gd.setSensorValue(GeoData.Semantic.MARK.getName(), foundPalces.contains(i) ? 1 : 0);
-            }
-
-            Map<Integer, GeoData> geoDataMap = getGeoData().stream().collect(Collectors.toMap(GeoData::getLineNumber, gd -> gd));
+        updateMarks();
 
         String separator = parser.getTemplate().getFileFormat().getSeparator();
 
         Map<String, SensorData> semanticToSensorData = parser.getTemplate().getDataMapping().getDataValues().stream()
                 .collect(Collectors.toMap(dv -> dv.getSemantic(), dv -> dv));
 
-        	try (BufferedReader reader = Files.newBufferedReader(inputFile);
-            	BufferedWriter writer = Files.newBufferedWriter(tempFile)) {
+        	try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                        Files.newInputStream(inputFile), StandardCharsets.UTF_8.newDecoder()), IO_BUFFER_SIZE);
+            	BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                        Files.newOutputStream(tempFile), StandardCharsets.UTF_8.newEncoder()), IO_BUFFER_SIZE)) {
 
                 String skippedLines = parser.getSkippedLines();
 
@@ -172,35 +178,83 @@ public class CsvFile extends SgyFile {
 
 				writer.write(skippedLines);
 
+                // source lines and rows are walked together
+                // in the order of line numbers
+                long[] rowsByLine = new long[geoData.size()];
+                for (int i = 0; i < rowsByLine.length; i++) {
+                    rowsByLine[i] = (long) geoData.get(i).getLineNumber() << 32 | i;
+                }
+                Arrays.sort(rowsByLine);
+
+                Map<SensorTable, int[]> columnPositions = new IdentityHashMap<>();
+                LinePatcher patcher = new LinePatcher(separator);
+
             	String line;
             	int lineNumber = 0;
+                int next = 0;
 
-            	while ((line = reader.readLine()) != null) {
+            	while (next < rowsByLine.length && (line = reader.readLine()) != null) {
                 	lineNumber++;
-                	if (geoDataMap.get(lineNumber) instanceof GeoData gd) {
-                        for (var sv: gd.getSensorValues()) {   
-                            if (sv.originalData() != sv.data()) {
-                                var template = semanticToSensorData.get(sv.semantic());
-                                line = replaceCsvValue(line, separator, Objects.requireNonNull(template).getIndex(), sv.data() != null ? String.format("%s", sv.data()) : "");
+                    while (next < rowsByLine.length && (int) (rowsByLine[next] >> 32) < lineNumber) {
+                        next++;
+                    }
+                    if (next == rowsByLine.length || (int) (rowsByLine[next] >> 32) != lineNumber) {
+                        // line without data is not saved
+                        continue;
+                    }
+                    GeoData gd = geoData.get((int) rowsByLine[next++]);
+                    SensorTable table = gd.getSensorTable();
+                    int row = gd.getRow();
+                    int[] positions = columnPositions.computeIfAbsent(table, t -> {
+                        int[] unresolved = new int[t.numColumns()];
+                        Arrays.fill(unresolved, Integer.MIN_VALUE);
+                        return unresolved;
+                    });
+                    for (int column = 0; column < positions.length; column++) {
+                        if (table.isModified(column, row)) {
+                            if (positions[column] == Integer.MIN_VALUE) {
+                                positions[column] = getColumnPosition(table.getSemantic(column),
+                                        semanticToSensorData);
                             }
+                            Number value = table.getNumber(column, row);
+                            patcher.set(positions[column], value != null ? value.toString() : null);
                         }
-                    	writer.write(line);
-                    	writer.newLine();
-                	}
+                    }
+                	patcher.write(line, writer);
+                	writer.newLine();
             	}
         	}
     }
 
-    private static String replaceCsvValue(String input, String separator, int position, String newValue) {
-        String[] parts = input.split(separator, -1); // -1 for save empty string
-        if (position >= 0 && position < parts.length) {
-            parts[position] = newValue;
-        } else if (position >= parts.length) {
-            parts = Arrays.copyOf(parts, position + 1);
-            parts[parts.length - 1] = newValue;
-            parts = Arrays.stream(parts).map(p -> p == null ? "" : p).toList().toArray(parts);
+    /**
+     * Sets mark values of the rows by the found places of the file;
+     * mark of the row becomes the original value when the row
+     * has no mark value.
+     */
+    private void updateMarks() {
+        Set<Integer> foundPlaces = getAuxElements().stream()
+                .filter(bo -> bo instanceof FoundPlace)
+                .map(bo -> ((FoundPlace) bo).getTraceIndex())
+                .collect(Collectors.toSet());
+        Map<SensorTable, Integer> markColumns = new IdentityHashMap<>();
+        for (int i = 0; i < geoData.size(); i++) {
+            GeoData gd = geoData.get(i);
+            SensorTable table = gd.getSensorTable();
+            int column = markColumns.computeIfAbsent(table,
+                    t -> t.addColumn(GeoData.Semantic.MARK.getName(), ""));
+            int row = gd.getRow();
+            if (!table.isPresent(column, row)) {
+                table.setValue(column, row, gd.isMarked() ? 1 : 0);
+            }
+            table.setValue(column, row, foundPlaces.contains(i) ? 1 : 0);
         }
-        return String.join(separator, parts);
+    }
+
+    private static int getColumnPosition(@Nullable String semantic, Map<String, SensorData> semanticToSensorData) {
+        SensorData sensorData = Check.notNull(semanticToSensorData.get(semantic),
+                "No column for sensor " + semantic);
+        return Check.notNull(sensorData.getIndex(),
+                "No column for sensor " + semantic);
     }
 
     @Override
@@ -0,0 +1,150 @@
+package com.github.thecoldwine.sigrun.common.ext;
+
+import com.ugcs.gprvisualizer.utils.Check;
+
+import java.util.stream.IntStream;
+
+/**
+ * Sample store keeping samples, edges and marks of all traces
+ * in contiguous primitive arrays indexed by trace offset.
+ * Copies share arrays until either side is modified.
+ */
+public class FlatSampleStore implements SampleStore {
+
+    // largest array size supported by the VM
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    // samples transformed by a single task
+    private static final int TRANSFORM_CHUNK_SIZE = 1 << 16;
+
+    // offsets of the traces, last value is the total
+    // number of samples
+    private final int[] offsets;
+
+    private float[] samples;
+
+    private byte[] edges;
+
+    private byte[] good;
+
+    // set when arrays are shared with a copy
+    private volatile boolean shared;
+
+    private FlatSampleStore(int[] offsets, float[] samples, byte[] edges, byte[] good) {
+        this.offsets = offsets;
+        this.samples = samples;
+        this.edges = edges;
+        this.good = good;
+    }
+
+    /**
+     * Reads samples of all traces of the source into the store.
+     */
+    public static FlatSampleStore load(SampleSource source) {
+        Check.notNull(source);
+
+        int numTraces = source.numTraces();
+        int[] offsets = new int[numTraces + 1];
+        long total = 0;
+        for (int i = 0; i < numTraces; i++) {
+            offsets[i] = (int)total;
+            total += source.numSamples(i);
+            Check.condition(total <= MAX_ARRAY_SIZE,
+                    "Too many samples to keep in memory, enable on-demand loading");
+        }
+        offsets[numTraces] = (int)total;
+
+        float[] samples = new float[(int)total];
+        for (int i = 0; i < numTraces; i++) {
+            source.read(i, samples, offsets[i]);
+        }
+        return new FlatSampleStore(offsets, samples,
+                new byte[samples.length], new byte[samples.length]);
+    }
+
+    @Override
+    public int numTraces() {
+        return offsets.length - 1;
+    }
+
+    @Override
+    public int numSamples(int trace) {
+        return offsets[trace + 1] - offsets[trace];
+    }
+
+    @Override
+    public float getSample(int trace, int sample) {
+        return samples[offsets[trace] + sample];
+    }
+
+    @Override
+    public void setSample(int trace, int sample, float value) {
+        ensureOwned();
+        samples[offsets[trace] + sample] = value;
+    }
+
+    @Override
+    public void getSamples(int trace, int sample, float[] dst, int offset, int length) {
+        Check.rangeInBounds(sample, length, numSamples(trace));
+        System.arraycopy(samples, offsets[trace] + sample, dst, offset, length);
+    }
+
+    @Override
+    public byte getEdge(int trace, int sample) {
+        return edges[offsets[trace] + sample];
+    }
+
+    @Override
+    public void setEdge(int trace, int sample, byte value) {
+        ensureOwned();
+        edges[offsets[trace] + sample] = value;
+    }
+
+    @Override
+    public byte getGood(int trace, int sample) {
+        return good[offsets[trace] + sample];
+    }
+
+    @Override
+    public void setGood(int trace, int sample, byte value) {
+        ensureOwned();
+        good[offsets[trace] + sample] = value;
+    }
+
+    private void ensureOwned() {
+        if (shared) {
+            detach();
+        }
+    }
+
+    private synchronized void detach() {
+        if (shared) {
+            samples = samples.clone();
+            edges = edges.clone();
+            good = good.clone();
+            shared = false;
+        }
+    }
+
+    @Override
+    public void transform(float mul, float add) {
+        ensureOwned();
+        float[] samples = this.samples;
+        int numChunks = (samples.length + TRANSFORM_CHUNK_SIZE - 1) / TRANSFORM_CHUNK_SIZE;
+        IntStream.range(0, numChunks).parallel().forEach(chunk -> {
+            int from = chunk * TRANSFORM_CHUNK_SIZE;
+            int to = Math.min(from + TRANSFORM_CHUNK_SIZE, samples.length);
+            for (int i = from; i < to; i++) {
+                samples[i] = samples[i] * mul + add;
+            }
+        });
+    }
+
+    @Override
+    public synchronized FlatSampleStore copy() {
+        FlatSampleStore copy = new FlatSampleStore(offsets, samples, edges, good);
+        copy.shared = true;
+        shared = true;
+        return copy;
+    }
+}
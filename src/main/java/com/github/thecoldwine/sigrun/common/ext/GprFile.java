@@ -13,13 +13,13 @@ import java.util.Set;
 import com.github.thecoldwine.sigrun.common.BinaryHeader;
 import com.github.thecoldwine.sigrun.common.ConverterFactory;
 import com.github.thecoldwine.sigrun.common.TraceHeader;
-import com.github.thecoldwine.sigrun.common.ext.BinFile.BinTrace;
 import com.github.thecoldwine.sigrun.converters.SeismicValuesConverter;
 import com.github.thecoldwine.sigrun.serialization.BinaryHeaderFormat;
 import com.github.thecoldwine.sigrun.serialization.BinaryHeaderReader;
 import com.github.thecoldwine.sigrun.serialization.TextHeaderReader;
 import com.github.thecoldwine.sigrun.serialization.TraceHeaderFormat;
 import com.github.thecoldwine.sigrun.serialization.TraceHeaderReader;
+import com.github.thecoldwine.sigrun.serialization.TraceHeaderView;
 import com.ugcs.gprvisualizer.app.auxcontrol.BaseObject;
 import com.ugcs.gprvisualizer.gpr.SgyLoader;
 import com.ugcs.gprvisualizer.utils.AuxElements;
@@ -82,46 +82,79 @@ public class GprFile extends TraceFile {
 
 		setFile(file);
 		
-		BinFile binFile = BinFile.load(file); 
-		
-		txtHdr = binFile.getTxtHdr();
-		binHdr = binFile.getBinHdr();
-		
-		binaryHeader = binaryHeaderReader.read(binFile.getBinHdr());
-		
-		System.out.println("binaryHeader.getSampleInterval() " 
-				+ binaryHeader.getSampleInterval());
-		System.out.println("SamplesPerDataTrace " 
-				+ binaryHeader.getSamplesPerDataTrace());
-
-		List<Trace> traces = readTraces(binFile);
-		// fill latlon where null
-		Traces.fillMissingLatLon(traces);
-
-		loadMeta(traces);
+		List<Trace> traces;
+		int numSourceTraces;
+		TraceCacheFile traceCache = openTraceCache();
+		try (MappedBinFile binFile = MappedBinFile.open(file)) {
+			txtHdr = binFile.getTxtHdr();
+			binHdr = binFile.getBinHdr();
+			binaryHeader = binFile.getBinaryHeader();
+
+			System.out.println("binaryHeader.getSampleInterval() "
+					+ binaryHeader.getSampleInterval());
+			System.out.println("SamplesPerDataTrace "
+					+ binaryHeader.getSamplesPerDataTrace());
+
+			if (traceCache != null && (traceCache.numTraces() != binFile.numTraces()
+					|| traceCache.getParameters().length != 2)) {
+				traceCache = null;
+			}
+			traces = traceCache != null
+					? readTraces(binFile, traceCache)
+					: readTraces(binFile);
+			numSourceTraces = binFile.numTraces();
+		}
 
-		sampleNormalizer.normalize(traces);
+		if (traceCache != null) {
+			// samples are normalized and coordinates resolved
+			float[] parameters = traceCache.getParameters();
+			sampleNormalizer.set(parameters[0], parameters[1]);
+			loadMeta(traces);
+		} else {
+			// fill latlon where null
+			Traces.fillMissingLatLon(traces);
+			loadMeta(traces);
+			sampleNormalizer.normalize(traces);
+		}
 		setTraces(traces);
 
 		updateTraces();
 		copyMarkedTracesToAuxElements();
-		updateTraceDistances();
-		
+		if (traceCache != null) {
+			updateTraceDistances(traceCache);
+		} else {
+			updateTraceDistances();
+			saveTraceCache(new float[] {
+					sampleNormalizer.getAvg(),
+					sampleNormalizer.getReduceFactor()});
+		}
+
 		setUnsaved(false);
 		
 		System.out.println("opened  '" + file.getName() 
 			+ "'   load size: " + getTraces().size() 
-			+ "  actual size: " + binFile.getTraces().size());
+			+ "  actual size: " + numSourceTraces);
 	}
 
-	private List<Trace> readTraces(BinFile binFile) {
+	private List<Trace> readTraces(MappedBinFile binFile) {
 		SeismicValuesConverter converter = ConverterFactory
 				.getConverter(binaryHeader.getDataSampleCode());
 
-		List<BinTrace> binTraces = binFile.getTraces();
-		List<Trace> traces = new ArrayList<>(binTraces.size());
-		for (BinTrace binTrace : binTraces) {
-			Trace trace = readTrace(binTrace, converter);
+		// load samples on demand when page cache is set,
+		// otherwise all samples are read into a flat store
+		MappedSampleSource source = new MappedSampleSource(binFile, converter);
+		SamplePageCache samplePageCache = getSamplePageCache();
+		SampleStore store = samplePageCache != null
+				? new PagedSampleStore(source, samplePageCache)
+				: FlatSampleStore.load(source);
+
+		// single view is rebound to headers of all traces
+		TraceHeaderView headerView = new TraceHeaderView(traceHeaderFormat);
+
+		int numTraces = binFile.numTraces();
+		List<Trace> traces = new ArrayList<>(numTraces);
+		for (int i = 0; i < numTraces; i++) {
+			Trace trace = readTrace(binFile, i, store, headerView);
 			if (trace == null) {
 				continue;
 			}
@@ -130,21 +163,40 @@ public class GprFile extends TraceFile {
 		return traces;
 	}
     
-	private Trace readTrace(BinTrace binTrace, SeismicValuesConverter converter) {
-		byte[] binHeader = binTrace.header;
-        TraceHeader header = traceHeaderReader.read(binHeader);
+	private List<Trace> readTraces(MappedBinFile binFile, TraceCacheFile traceCache) {
+		// samples are read from the cache, headers from the source file
+		SamplePageCache samplePageCache = getSamplePageCache();
+		SampleStore store = samplePageCache != null
+				? new PagedSampleStore(traceCache, samplePageCache)
+				: FlatSampleStore.load(traceCache);
+
+		int numTraces = binFile.numTraces();
+		List<Trace> traces = new ArrayList<>(numTraces);
+		for (int i = 0; i < numTraces; i++) {
+			byte[] binHeader = binFile.readTraceHeader(i);
+			Trace trace = new Trace(binHeader, store, i, traceCache.getLatLon(i));
+			if (binHeader[TraceHeaderView.MARK_POS] != 0) {
+				trace.setMarked(true);
+			}
+			traces.add(trace);
+		}
+		return traces;
+	}
 
-        float[] values = converter.convert(binTrace.data);
+	private Trace readTrace(MappedBinFile binFile, int index, SampleStore store,
+			TraceHeaderView headerView) {
+		byte[] binHeader = binFile.readTraceHeader(index);
+		TraceHeaderView header = headerView.wrap(binHeader);
         LatLon latLon = getLatLon(header);
 
-        Trace trace = new Trace(binHeader, header, values, latLon);
-        if (binHeader[MARK_BYTE_POS] != 0) {
+		Trace trace = new Trace(binHeader, store, index, latLon);
+        if (header.isMarked()) {
         	trace.setMarked(true);
         }
         return trace;
 	}
 
-	private LatLon getLatLon(TraceHeader header) {
+	private LatLon getLatLon(TraceHeaderView header) {
 		double lon = retrieveVal(header.getLongitude(), header.getSourceX());
 		double lat = retrieveVal(header.getLatitude(), header.getSourceY());
 
@@ -163,27 +215,27 @@ public class GprFile extends TraceFile {
 		return new LatLon(rlat, rlon);
 	}
 
-	private double retrieveVal(Double v1, Float v2) {
-		if (v1 != null && Math.abs(v1) > 0.01) {
+	private double retrieveVal(double v1, float v2) {
+		if (Math.abs(v1) > 0.01) {
 			return v1;
 		}
-		return v2 != null ? v2.doubleValue() : 0;
+		return v2;
 	}
 
-	private LatLon getScaledSourceLatLon(TraceHeader header) {
-		Float sourceX = header.getSourceX();
-		Float sourceY = header.getSourceY();
-		if (sourceX == null || sourceY == null) {
+	private LatLon getScaledSourceLatLon(TraceHeaderView header) {
+		if (!header.hasSourceCoordinates()) {
 			return null;
 		}
+		float sourceX = header.getSourceX();
+		float sourceY = header.getSourceY();
 
 		// scaled arc seconds as integers
 		int x = Float.floatToIntBits(sourceX);
 		int y = Float.floatToIntBits(sourceY);
 
 		double k = 1.0;
-		Short scalar = header.getScalarForCoordinates();
-		if (scalar != null) {
+		if (header.hasScalarForCoordinates()) {
+			short scalar = header.getScalarForCoordinates();
 			k = scalar >= 0 ? scalar : 1.0 / -scalar;
 		}
 
@@ -208,11 +260,7 @@ public class GprFile extends TraceFile {
 
 		SeismicValuesConverter converter = ConverterFactory
 				.getConverter(binaryHeader.getDataSampleCode());
-
-		BinFile binFile = new BinFile();
-
-		binFile.setTxtHdr(txtHdr);
-		binFile.setBinHdr(binHdr);
+		int sampleSize = binaryHeader.getDataSampleCode().getSize();
 
 		Set<Integer> marks = AuxElements.getMarkIndices(getAuxElements(), range);
 
@@ -221,29 +269,29 @@ public class GprFile extends TraceFile {
 		int from = range.getMin().intValue();
 		int to = range.getMax().intValue() + 1; // exclusive
 
-		for (int i = from; i < to; i++) {
-			Trace trace = fileTraces.get(i);
+		// header is patched in a reusable copy, trace headers stay intact
+		byte[] header = new byte[TraceHeader.TRACE_HEADER_LENGTH];
+		ByteBuffer buffer = ByteBuffer.wrap(header);
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
 
-			BinTrace binTrace = new BinTrace();
-			binTrace.header = trace.getBinHeader();
+		try (SegyWriter writer = new SegyWriter(file, txtHdr, binHdr, converter, sampleSize)) {
+			for (int i = from; i < to; i++) {
+				Trace trace = fileTraces.get(i);
 
-			// upd coordinates
-			ByteBuffer buffer = ByteBuffer.wrap(binTrace.header);
-			buffer.order(ByteOrder.LITTLE_ENDIAN);
+				System.arraycopy(trace.getBinHeader(), 0, header, 0, header.length);
 
-			buffer.putShort(114, (short)trace.numSamples());
-			buffer.putDouble(190, convertBackDegreeFraction(trace.getLatLon().getLatDgr()));
-			buffer.putDouble(182, convertBackDegreeFraction(trace.getLatLon().getLonDgr()));
+				// upd coordinates
+				buffer.putShort(114, (short)trace.numSamples());
+				buffer.putDouble(190, convertBackDegreeFraction(trace.getLatLon().getLatDgr()));
+				buffer.putDouble(182, convertBackDegreeFraction(trace.getLatLon().getLonDgr()));
 
-			// set or clear mark
-			binTrace.header[MARK_BYTE_POS] =
-					(byte) (marks.contains(trace.getIndex()) ? -1 : 0);
-			
-			binTrace.data = converter.valuesToByteBuffer(trace).array();
-			binFile.getTraces().add(binTrace);
-		}
+				// set or clear mark
+				header[MARK_BYTE_POS] =
+						(byte) (marks.contains(trace.getIndex()) ? -1 : 0);
 
-		binFile.save(file);
+				writer.writeTrace(header, trace);
+			}
+		}
 	}
 
 	@Override
@@ -253,6 +301,7 @@ public class GprFile extends TraceFile {
 		copy.txtHdr = this.txtHdr;
 		copy.binaryHeader = this.binaryHeader;
 		copy.sampleNormalizer.copyFrom(this.sampleNormalizer);
+		copy.setSamplePageCache(getSamplePageCache());
 
 		copy.setFile(getFile());
 		copy.setUnsaved(isUnsaved());
@@ -281,4 +330,32 @@ public class GprFile extends TraceFile {
 	public void denormalize() {
 		sampleNormalizer.back(traces);
 	}
+
+	static class MappedSampleSource implements SampleSource {
+
+		private final MappedBinFile binFile;
+
+		private final SeismicValuesConverter converter;
+
+		MappedSampleSource(MappedBinFile binFile, SeismicValuesConverter converter) {
+			this.binFile = binFile;
+			this.converter = converter;
+		}
+
+		@Override
+		public int numTraces() {
+			return binFile.numTraces();
+		}
+
+		@Override
+		public int numSamples(int trace) {
+			return binFile.getNumSamples(trace);
+		}
+
+		@Override
+		public void read(int trace, float[] dst, int offset) {
+			// decoded straight from the mapping
+			converter.convertInto(binFile.getTraceData(trace), dst, offset);
+		}
+	}
 }
@@ -0,0 +1,194 @@
+package com.github.thecoldwine.sigrun.common.ext;
+
+import com.github.thecoldwine.sigrun.common.BinaryHeader;
+import com.github.thecoldwine.sigrun.common.TextHeader;
+import com.github.thecoldwine.sigrun.common.TraceHeader;
+import com.ugcs.gprvisualizer.utils.Check;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Read-only view of a SEG-Y file backed by memory mappings.
+ * Trace positions are indexed in a single pass over the trace headers
+ * and kept as 64-bit offsets, so files larger than 2 GB are supported.
+ * Headers and samples are read directly from the mapping on demand.
+ */
+public class MappedBinFile implements Closeable {
+
+    // number of samples, signed short in the trace header
+    private static final int NUM_SAMPLES_POS = 114;
+
+    // a single mapping cannot exceed Integer.MAX_VALUE bytes,
+    // file is mapped in segments of this size
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    // max trace size: header and 32767 samples of 8 bytes;
+    // segments overlap by this size, so that any trace
+    // starting in a segment fits into it completely
+    private static final long SEGMENT_OVERLAP
+            = TraceHeader.TRACE_HEADER_LENGTH + (long)Short.MAX_VALUE * 8;
+
+    private static final int DATA_POS
+            = TextHeader.TEXT_HEADER_SIZE + BinaryHeader.BIN_HEADER_LENGTH;
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer[] segments;
+
+    private final byte[] txtHdr;
+
+    private final byte[] binHdr;
+
+    private final BinaryHeader binaryHeader;
+
+    private final int sampleSize;
+
+    // offsets of the trace headers
+    private long[] offsets = new long[0];
+
+    private int numTraces;
+
+    private MappedBinFile(FileChannel channel) throws IOException {
+        this.channel = channel;
+
+        long size = channel.size();
+        Check.condition(size >= DATA_POS, "Corrupted file");
+
+        int numSegments = (int)((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+        segments = new MappedByteBuffer[numSegments];
+        for (int i = 0; i < numSegments; i++) {
+            long start = i * SEGMENT_SIZE;
+            long length = Math.min(SEGMENT_SIZE + SEGMENT_OVERLAP, size - start);
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            segment.order(ByteOrder.LITTLE_ENDIAN);
+            segments[i] = segment;
+        }
+
+        txtHdr = readBytes(0, TextHeader.TEXT_HEADER_SIZE);
+        binHdr = readBytes(TextHeader.TEXT_HEADER_SIZE, BinaryHeader.BIN_HEADER_LENGTH);
+        binaryHeader = GprFile.binaryHeaderReader.read(binHdr);
+        sampleSize = binaryHeader.getDataSampleCode().getSize();
+    }
+
+    public static MappedBinFile open(File file) throws IOException {
+        Check.notNull(file);
+
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            MappedBinFile binFile = new MappedBinFile(channel);
+            binFile.indexTraces();
+            return binFile;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void indexTraces() throws IOException {
+        long size = channel.size();
+        long position = DATA_POS;
+
+        long[] index = new long[1024];
+        int n = 0;
+        while (position + TraceHeader.TRACE_HEADER_LENGTH <= size) {
+            long headerPosition = position;
+            int numSamples = segment(headerPosition).getShort(
+                    local(headerPosition) + NUM_SAMPLES_POS);
+            position += TraceHeader.TRACE_HEADER_LENGTH;
+
+            long dataLength = (long)sampleSize * numSamples;
+            if (dataLength > 0 && position + dataLength <= size) {
+                if (n == index.length) {
+                    index = Arrays.copyOf(index, 2 * n);
+                }
+                index[n++] = headerPosition;
+                position += dataLength;
+            }
+        }
+        offsets = index;
+        numTraces = n;
+    }
+
+    private MappedByteBuffer segment(long position) {
+        return segments[(int)(position / SEGMENT_SIZE)];
+    }
+
+    private static int local(long position) {
+        return (int)(position % SEGMENT_SIZE);
+    }
+
+    private byte[] readBytes(long position, int length) {
+        byte[] bytes = new byte[length];
+        segment(position).get(local(position), bytes);
+        return bytes;
+    }
+
+    private ByteBuffer slice(long position, int length) {
+        return segment(position)
+                .slice(local(position), length)
+                .order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public byte[] getTxtHdr() {
+        return txtHdr;
+    }
+
+    public byte[] getBinHdr() {
+        return binHdr;
+    }
+
+    public BinaryHeader getBinaryHeader() {
+        return binaryHeader;
+    }
+
+    public int numTraces() {
+        return numTraces;
+    }
+
+    public long getTraceOffset(int index) {
+        return offsets[Check.indexInBounds(index, numTraces)];
+    }
+
+    public int getNumSamples(int index) {
+        long position = getTraceOffset(index);
+        return segment(position).getShort(local(position) + NUM_SAMPLES_POS);
+    }
+
+    /**
+     * Returns a little-endian view of the trace header
+     * positioned at its first byte.
+     */
+    public ByteBuffer getTraceHeader(int index) {
+        return slice(getTraceOffset(index), TraceHeader.TRACE_HEADER_LENGTH);
+    }
+
+    /**
+     * Returns a copy of the trace header bytes.
+     */
+    public byte[] readTraceHeader(int index) {
+        return readBytes(getTraceOffset(index), TraceHeader.TRACE_HEADER_LENGTH);
+    }
+
+    /**
+     * Returns a view of the trace samples positioned
+     * at the first sample. Byte order is little-endian.
+     */
+    public ByteBuffer getTraceData(int index) {
+        long position = getTraceOffset(index) + TraceHeader.TRACE_HEADER_LENGTH;
+        return slice(position, sampleSize * getNumSamples(index));
+    }
+
+    @Override
+    public void close() throws IOException {
+        // mappings stay valid after the channel is closed
+        channel.close();
+    }
+}
@@ -5,6 +5,7 @@ import com.ugcs.gprvisualizer.app.meta.TraceLine;
 import com.ugcs.gprvisualizer.app.meta.TraceMark;
 import com.ugcs.gprvisualizer.app.meta.TraceMeta;
 import com.ugcs.gprvisualizer.app.parcers.GeoData;
+import com.ugcs.gprvisualizer.app.parcers.SensorTable;
 import com.ugcs.gprvisualizer.app.quality.LineSchema;
 import com.ugcs.gprvisualizer.utils.Check;
 import com.ugcs.gprvisualizer.utils.FileNames;
@@ -39,6 +40,10 @@ public class MetaFile {
 
     private List<TraceGeoData> values = new ArrayList<>();
 
+    // average of the source samples, kept for formats
+    // that subtract it on open
+    private Float sampleAvg;
+
     public SampleRange getSampleRange() {
         return sampleRange;
     }
@@ -47,6 +52,14 @@ public class MetaFile {
         this.sampleRange = sampleRange;
     }
 
+    public Float getSampleAvg() {
+        return sampleAvg;
+    }
+
+    public void setSampleAvg(Float sampleAvg) {
+        this.sampleAvg = sampleAvg;
+    }
+
     public Set<Integer> getMarks() {
         return marks;
     }
@@ -60,10 +73,20 @@ public class MetaFile {
     }
 
     public static Path getMetaPath(File source) {
+        return getMetaPath(source, "");
+    }
+
+    /**
+     * Returns path of the meta file with a suffix appended
+     * to the source base name, used when a single source file
+     * holds more than one trace file (e.g. channels).
+     */
+    public static Path getMetaPath(File source, String nameSuffix) {
         Check.notNull(source);
+        Check.notNull(nameSuffix);
 
         String sourceBase = FileNames.removeExtension(source.getName());
-        String metaFileName = Strings.nullToEmpty(sourceBase) + META_FILE_EXTENSION;
+        String metaFileName = Strings.nullToEmpty(sourceBase) + nameSuffix + META_FILE_EXTENSION;
 
         return new File(source.getParentFile(), metaFileName).toPath();
     }
@@ -183,6 +206,9 @@ public class MetaFile {
         }
         meta.setMarks(traceMarks);
 
+        // sample average
+        meta.setSampleAvg(sampleAvg);
+
         return meta;
     }
 
@@ -204,9 +230,10 @@ public class MetaFile {
 
         int lineIndex = 0;
         List<TraceGeoData> values = new ArrayList<>(numValues);
+        SensorTable sensorTable = new SensorTable(numValues);
         for (TraceLine line : lines) {
             for (int i = line.getFrom(); i < line.getTo(); i++) {
-                TraceGeoData value = new TraceGeoData(i);
+                TraceGeoData value = new TraceGeoData(sensorTable, values.size(), i);
                 value.setLineIndex(lineIndex);
                 values.add(value);
             }
@@ -229,6 +256,9 @@ public class MetaFile {
             }
         }
         this.marks = marks;
+
+        // sample average
+        this.sampleAvg = meta.getSampleAvg();
     }
 
     private TraceMeta readMeta(Path path) throws IOException {
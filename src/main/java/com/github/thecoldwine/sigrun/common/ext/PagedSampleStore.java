@@ -0,0 +1,288 @@
+package com.github.thecoldwine.sigrun.common.ext;
+
+import com.ugcs.gprvisualizer.app.commands.EdgeFinder;
+import com.ugcs.gprvisualizer.utils.Check;
+import org.jspecify.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sample store that decodes samples from the source on demand.
+ * Traces are grouped into pages; clean pages are kept in the shared
+ * {@link SamplePageCache} and may be evicted at any time, pages with
+ * modified samples are kept resident by the store.
+ * <p>
+ * Edges and marks of a page are kept resident once any of them is set,
+ * apart from the samples: samples of the page may still be evicted and
+ * are decoded again with the stored edges and marks.
+ */
+public class PagedSampleStore implements SampleStore {
+
+    static final int TRACES_PER_PAGE = 256;
+
+    private final SampleSource source;
+
+    private final SamplePageCache cache;
+
+    // modified pages, not subject to eviction
+    private final Map<Integer, Page> dirtyPages = new HashMap<>();
+
+    // edges and marks of the pages with set values, not subject to eviction
+    private final Map<Integer, Marks> markedPages = new HashMap<>();
+
+    // transform applied to the source values on decode
+    private float mul = 1f;
+
+    private float add = 0f;
+
+    @Nullable
+    private volatile Page lastPage;
+
+    public PagedSampleStore(SampleSource source, SamplePageCache cache) {
+        this.source = Check.notNull(source);
+        this.cache = Check.notNull(cache);
+    }
+
+    @Override
+    public int numTraces() {
+        return source.numTraces();
+    }
+
+    @Override
+    public int numSamples(int trace) {
+        return source.numSamples(trace);
+    }
+
+    @Override
+    public float getSample(int trace, int sample) {
+        return page(trace).samples[trace % TRACES_PER_PAGE][sample];
+    }
+
+    @Override
+    public void setSample(int trace, int sample, float value) {
+        writablePage(trace).samples[trace % TRACES_PER_PAGE][sample] = value;
+    }
+
+    @Override
+    public void getSamples(int trace, int sample, float[] dst, int offset, int length) {
+        float[] samples = page(trace).samples[trace % TRACES_PER_PAGE];
+        System.arraycopy(samples, sample, dst, offset, length);
+    }
+
+    @Override
+    public byte getEdge(int trace, int sample) {
+        return page(trace).marks.edges[trace % TRACES_PER_PAGE][sample];
+    }
+
+    @Override
+    public void setEdge(int trace, int sample, byte value) {
+        writableMarks(trace).edges[trace % TRACES_PER_PAGE][sample] = value;
+    }
+
+    @Override
+    public byte getGood(int trace, int sample) {
+        return page(trace).marks.good[trace % TRACES_PER_PAGE][sample];
+    }
+
+    @Override
+    public void setGood(int trace, int sample, byte value) {
+        writableMarks(trace).good[trace % TRACES_PER_PAGE][sample] = value;
+    }
+
+    private Page page(int trace) {
+        int pageIndex = trace / TRACES_PER_PAGE;
+        Page page = lastPage;
+        if (page == null || page.index != pageIndex) {
+            page = loadPage(pageIndex);
+            lastPage = page;
+        }
+        return page;
+    }
+
+    private Page writablePage(int trace) {
+        Page page = page(trace);
+        if (!page.dirty) {
+            page = loadDirtyPage(page.index);
+            lastPage = page;
+        }
+        return page;
+    }
+
+    private Marks writableMarks(int trace) {
+        Page page = page(trace);
+        if (!page.marked) {
+            return loadMarks(page);
+        }
+        return page.marks;
+    }
+
+    private synchronized Page loadPage(int pageIndex) {
+        Page page = dirtyPages.get(pageIndex);
+        if (page == null) {
+            page = cache.get(this, pageIndex);
+        }
+        if (page == null) {
+            page = readPage(pageIndex);
+            cache.put(this, pageIndex, page);
+        }
+        return page;
+    }
+
+    private synchronized Page loadDirtyPage(int pageIndex) {
+        Page page = dirtyPages.get(pageIndex);
+        if (page == null) {
+            page = cache.remove(this, pageIndex);
+            if (page == null) {
+                page = readPage(pageIndex);
+            }
+            page.dirty = true;
+            dirtyPages.put(pageIndex, page);
+        }
+        return page;
+    }
+
+    private synchronized Marks loadMarks(Page page) {
+        Marks marks = markedPages.get(page.index);
+        if (marks == null) {
+            marks = page.marks;
+            markedPages.put(page.index, marks);
+        }
+        page.marked = marks == page.marks;
+        return marks;
+    }
+
+    private Page readPage(int pageIndex) {
+        int from = pageIndex * TRACES_PER_PAGE;
+        int to = Math.min(from + TRACES_PER_PAGE, source.numTraces());
+
+        Marks marks = markedPages.get(pageIndex);
+        Page page = marks != null
+                ? new Page(pageIndex, marks)
+                : new Page(pageIndex, new Marks(to - from));
+        page.marked = marks != null;
+        for (int i = from; i < to; i++) {
+            int numSamples = source.numSamples(i);
+            float[] samples = new float[numSamples];
+            source.read(i, samples, 0);
+            if (mul != 1f || add != 0f) {
+                for (int j = 0; j < numSamples; j++) {
+                    samples[j] = samples[j] * mul + add;
+                }
+            }
+            page.samples[i - from] = samples;
+
+            if (marks == null) {
+                byte[] edges = new byte[numSamples];
+                EdgeFinder.findEdges(samples, edges);
+
+                page.marks.edges[i - from] = edges;
+                page.marks.good[i - from] = new byte[numSamples];
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public synchronized void transform(float mul, float add) {
+        // compose with the decode transform
+        this.mul = this.mul * mul;
+        this.add = this.add * mul + add;
+
+        // clean pages are decoded again with the new transform
+        cache.removeAll(this);
+        lastPage = null;
+
+        for (Page page : dirtyPages.values()) {
+            for (float[] samples : page.samples) {
+                for (int j = 0; j < samples.length; j++) {
+                    samples[j] = samples[j] * mul + add;
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized PagedSampleStore copy() {
+        PagedSampleStore copy = new PagedSampleStore(source, cache);
+        copy.mul = mul;
+        copy.add = add;
+        for (Map.Entry<Integer, Marks> entry : markedPages.entrySet()) {
+            copy.markedPages.put(entry.getKey(), entry.getValue().copy());
+        }
+        for (Map.Entry<Integer, Page> entry : dirtyPages.entrySet()) {
+            Page page = entry.getValue();
+            Marks marks = copy.markedPages.get(entry.getKey());
+            copy.dirtyPages.put(entry.getKey(), page.copy(marks != null ? marks : page.marks.copy()));
+        }
+        return copy;
+    }
+
+    /**
+     * Drops all clean pages of the store from the shared cache.
+     */
+    public void release() {
+        cache.removeAll(this);
+        lastPage = null;
+    }
+
+    static final class Page {
+
+        private final int index;
+
+        private final float[][] samples;
+
+        private final Marks marks;
+
+        private volatile boolean dirty;
+
+        // marks of the page are kept by the store
+        private volatile boolean marked;
+
+        Page(int index, Marks marks) {
+            this.index = index;
+            this.samples = new float[marks.edges.length][];
+            this.marks = marks;
+        }
+
+        long sizeInBytes() {
+            long size = 0;
+            for (float[] values : samples) {
+                // float sample, edge and good bytes
+                size += 6L * values.length;
+            }
+            return size;
+        }
+
+        Page copy(Marks marks) {
+            Page copy = new Page(index, marks);
+            for (int i = 0; i < samples.length; i++) {
+                copy.samples[i] = samples[i].clone();
+            }
+            copy.dirty = dirty;
+            copy.marked = marked;
+            return copy;
+        }
+    }
+
+    static final class Marks {
+
+        private final byte[][] edges;
+
+        private final byte[][] good;
+
+        Marks(int numTraces) {
+            this.edges = new byte[numTraces][];
+            this.good = new byte[numTraces][];
+        }
+
+        Marks copy() {
+            Marks copy = new Marks(edges.length);
+            for (int i = 0; i < edges.length; i++) {
+                copy.edges[i] = edges[i].clone();
+                copy.good[i] = good[i].clone();
+            }
+            return copy;
+        }
+    }
+}
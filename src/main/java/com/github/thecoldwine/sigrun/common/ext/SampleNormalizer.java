@@ -1,7 +1,8 @@
 package com.github.thecoldwine.sigrun.common.ext;
 
+import com.ugcs.gprvisualizer.utils.Traces;
+
 import java.util.List;
-import java.util.stream.IntStream;
 
 public class SampleNormalizer {
 
@@ -10,45 +11,50 @@ public class SampleNormalizer {
     private float reduceFactor;
 
     public void normalize(List<Trace> traces) {
-        // only bottom half because top has big distortion
-        avg = (float) traces.stream()
-                .flatMapToDouble(t -> IntStream
-                        .range(t.numSamples() / 2, t.numSamples())
-                        .mapToDouble(i -> t.getSample(i)))
-                .average()
-                .getAsDouble();
-
-        // dispersion around avg
-        float finalAvg = avg;
-        float dispersion = (float) traces.stream()
-                .flatMapToDouble(t -> IntStream
-                        .range(0, t.numSamples())
-                        .mapToDouble(i -> Math.abs(t.getSample(i) - finalAvg)))
-                .average()
-                .getAsDouble();
-
-        reduceFactor = dispersion / 500;
-        normalize(traces, avg, reduceFactor);
+        SampleStatistics statistics = SampleStatistics.compute(traces);
 
-        System.out.println("AVG: " + avg +  "  DISPERSION: " + dispersion);
+        avg = statistics.getAvg();
+        reduceFactor = statistics.getDispersion() / 500;
+        normalize(traces, avg, reduceFactor);
     }
 
     private void normalize(List<Trace> traces, float avg, float reduceFactor) {
-        for (Trace trace : traces) {
-            for (int i = 0; i < trace.numSamples(); i++ ) {
-                float normalized = (trace.getSample(i) - avg) / reduceFactor;
-                trace.setSample(i, normalized);
-            }
-        }
+        transform(traces, 1 / reduceFactor, -avg / reduceFactor);
     }
 
     public void back(List<Trace> traces) {
-        for (Trace trace : traces) {
-            for (int i = 0; i < trace.numSamples(); i++ ) {
-                float restored = trace.getSample(i) * reduceFactor + avg;
-                trace.setSample(i, restored);
-            }
+        transform(traces, reduceFactor, avg);
+    }
+
+    private static void transform(List<Trace> traces, float mul, float add) {
+        SampleStore store = Traces.getSampleStore(traces);
+        if (store != null) {
+            store.transform(mul, add);
+            return;
         }
+        // resident traces hold separate arrays
+        traces.parallelStream().forEach(trace -> {
+            for (int i = 0; i < trace.numSamples(); i++) {
+                trace.setSample(i, trace.getSample(i) * mul + add);
+            }
+        });
+    }
+
+    public float getAvg() {
+        return avg;
+    }
+
+    public float getReduceFactor() {
+        return reduceFactor;
+    }
+
+    /**
+     * Sets parameters of already normalized samples,
+     * so that they can be restored back.
+     */
+    public void set(float avg, float reduceFactor) {
+        this.avg = avg;
+        this.reduceFactor = reduceFactor;
     }
 
     public void copyFrom(SampleNormalizer sampleNormalizer) {
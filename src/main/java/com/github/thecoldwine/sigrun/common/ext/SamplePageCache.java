@@ -0,0 +1,80 @@
+package com.github.thecoldwine.sigrun.common.ext;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of decoded sample pages shared by all paged stores.
+ * Holds clean pages only: pages with modified samples are owned
+ * by their stores and are not subject to eviction.
+ */
+public class SamplePageCache {
+
+    private final long capacity;
+
+    private long size;
+
+    private final LinkedHashMap<PageKey, PagedSampleStore.Page> pages
+            = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * @param capacity memory budget in bytes
+     */
+    public SamplePageCache(long capacity) {
+        this.capacity = capacity;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public synchronized long getSize() {
+        return size;
+    }
+
+    synchronized PagedSampleStore.Page get(PagedSampleStore store, int pageIndex) {
+        return pages.get(new PageKey(store, pageIndex));
+    }
+
+    synchronized void put(PagedSampleStore store, int pageIndex, PagedSampleStore.Page page) {
+        PagedSampleStore.Page prev = pages.put(new PageKey(store, pageIndex), page);
+        if (prev != null) {
+            size -= prev.sizeInBytes();
+        }
+        size += page.sizeInBytes();
+        evict();
+    }
+
+    synchronized PagedSampleStore.Page remove(PagedSampleStore store, int pageIndex) {
+        PagedSampleStore.Page page = pages.remove(new PageKey(store, pageIndex));
+        if (page != null) {
+            size -= page.sizeInBytes();
+        }
+        return page;
+    }
+
+    synchronized void removeAll(PagedSampleStore store) {
+        Iterator<Map.Entry<PageKey, PagedSampleStore.Page>> it = pages.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<PageKey, PagedSampleStore.Page> entry = it.next();
+            if (entry.getKey().store() == store) {
+                size -= entry.getValue().sizeInBytes();
+                it.remove();
+            }
+        }
+    }
+
+    private void evict() {
+        Iterator<PagedSampleStore.Page> it = pages.values().iterator();
+        // keep at least the most recent page
+        while (size > capacity && pages.size() > 1 && it.hasNext()) {
+            PagedSampleStore.Page page = it.next();
+            size -= page.sizeInBytes();
+            it.remove();
+        }
+    }
+
+    private record PageKey(PagedSampleStore store, int pageIndex) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.github.thecoldwine.sigrun.common.ext;
+
+/**
+ * Source of decoded trace samples, typically a data file.
+ */
+public interface SampleSource {
+
+    int numTraces();
+
+    int numSamples(int trace);
+
+    /**
+     * Decodes samples of the trace into the destination array
+     * starting at the offset.
+     */
+    void read(int trace, float[] dst, int offset);
+}
@@ -0,0 +1,135 @@
+package com.github.thecoldwine.sigrun.common.ext;
+
+import com.ugcs.gprvisualizer.utils.Check;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Amplitude statistics of the trace samples used for normalization:
+ * average over the bottom half of the traces, as the top has big
+ * distortion, and mean absolute deviation of all samples around it.
+ * Sums are reduced in parallel over blocks of traces, samples
+ * of a trace are copied in bulk into a per-task buffer.
+ */
+public final class SampleStatistics {
+
+    // traces summed by a single task, matches the page size
+    // of the paged store so that a task touches a single page
+    private static final int BLOCK_SIZE = PagedSampleStore.TRACES_PER_PAGE;
+
+    private final float avg;
+
+    private final float dispersion;
+
+    private final long count;
+
+    public SampleStatistics(float avg, float dispersion, long count) {
+        this.avg = avg;
+        this.dispersion = dispersion;
+        this.count = count;
+    }
+
+    public static SampleStatistics compute(List<Trace> traces) {
+        Check.notNull(traces);
+
+        Sum bottom = ForkJoinPool.commonPool().invoke(
+                new SumTask(traces, 0, traces.size(), Float.NaN));
+        Check.condition(bottom.count > 0, "No samples");
+        float avg = (float)(bottom.sum / bottom.count);
+
+        // dispersion around avg
+        Sum deviation = ForkJoinPool.commonPool().invoke(
+                new SumTask(traces, 0, traces.size(), avg));
+        float dispersion = (float)(deviation.sum / deviation.count);
+
+        return new SampleStatistics(avg, dispersion, deviation.count);
+    }
+
+    public float getAvg() {
+        return avg;
+    }
+
+    public float getDispersion() {
+        return dispersion;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "AVG: " + avg + "  DISPERSION: " + dispersion;
+    }
+
+    private record Sum(double sum, long count) {
+
+        Sum add(Sum other) {
+            return new Sum(sum + other.sum, count + other.count);
+        }
+    }
+
+    private static final class SumTask extends RecursiveTask<Sum> {
+
+        private final List<Trace> traces;
+
+        private final int from;
+
+        private final int to;
+
+        // NaN sums bottom halves of the traces,
+        // otherwise absolute deviations from the center
+        private final float center;
+
+        SumTask(List<Trace> traces, int from, int to, float center) {
+            this.traces = traces;
+            this.from = from;
+            this.to = to;
+            this.center = center;
+        }
+
+        @Override
+        protected Sum compute() {
+            if (to - from <= BLOCK_SIZE) {
+                return sumBlock();
+            }
+            int mid = (from + to) >>> 1;
+            SumTask left = new SumTask(traces, from, mid, center);
+            SumTask right = new SumTask(traces, mid, to, center);
+            left.fork();
+            Sum rightSum = right.compute();
+            return left.join().add(rightSum);
+        }
+
+        private Sum sumBlock() {
+            boolean bottomHalf = Float.isNaN(center);
+
+            double sum = 0;
+            long count = 0;
+            float[] buffer = new float[0];
+            for (int i = from; i < to; i++) {
+                Trace trace = traces.get(i);
+                int numSamples = trace.numSamples();
+                if (buffer.length < numSamples) {
+                    buffer = new float[numSamples];
+                }
+                trace.getSamples(buffer, 0);
+
+                if (bottomHalf) {
+                    for (int j = numSamples / 2; j < numSamples; j++) {
+                        sum += buffer[j];
+                    }
+                    count += numSamples - numSamples / 2;
+                } else {
+                    for (int j = 0; j < numSamples; j++) {
+                        sum += Math.abs(buffer[j] - center);
+                    }
+                    count += numSamples;
+                }
+            }
+            return new Sum(sum, count);
+        }
+    }
+}
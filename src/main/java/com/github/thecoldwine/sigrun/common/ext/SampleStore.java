@@ -0,0 +1,43 @@
+package com.github.thecoldwine.sigrun.common.ext;
+
+/**
+ * Backing storage of trace samples, edges and marks.
+ * Traces created over a store delegate all sample access to it
+ * by their position in the store.
+ */
+public interface SampleStore {
+
+    int numTraces();
+
+    int numSamples(int trace);
+
+    float getSample(int trace, int sample);
+
+    void setSample(int trace, int sample, float value);
+
+    /**
+     * Copies {@code length} samples of the trace starting
+     * from {@code sample} to {@code dst} at {@code offset}.
+     */
+    void getSamples(int trace, int sample, float[] dst, int offset, int length);
+
+    byte getEdge(int trace, int sample);
+
+    void setEdge(int trace, int sample, byte value);
+
+    byte getGood(int trace, int sample);
+
+    void setGood(int trace, int sample, byte value);
+
+    /**
+     * Applies linear transform {@code value * mul + add}
+     * to all samples in the store.
+     */
+    void transform(float mul, float add);
+
+    /**
+     * Creates an independent copy of the store;
+     * changes to the copy are not visible in this store.
+     */
+    SampleStore copy();
+}
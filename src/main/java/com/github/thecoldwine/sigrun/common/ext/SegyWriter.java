@@ -0,0 +1,87 @@
+package com.github.thecoldwine.sigrun.common.ext;
+
+import com.github.thecoldwine.sigrun.common.TraceHeader;
+import com.github.thecoldwine.sigrun.converters.SeismicValuesConverter;
+import com.ugcs.gprvisualizer.utils.Check;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streaming SEG-Y writer. Headers and encoded samples are staged
+ * in a direct buffer of a fixed size which is flushed to the file
+ * channel when full, so memory used by a save does not depend
+ * on the number of traces written.
+ */
+public class SegyWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 4 << 20;
+
+    // staging buffers are reused between saves made by the same thread
+    private static final ThreadLocal<ByteBuffer> buffers
+            = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    private final FileChannel channel;
+
+    private final SeismicValuesConverter converter;
+
+    private final int sampleSize;
+
+    private final ByteBuffer buffer;
+
+    public SegyWriter(File file, byte[] txtHdr, byte[] binHdr,
+            SeismicValuesConverter converter, int sampleSize) throws IOException {
+        Check.notNull(file);
+        Check.notNull(txtHdr);
+        Check.notNull(binHdr);
+        Check.notNull(converter);
+
+        this.converter = converter;
+        this.sampleSize = sampleSize;
+        this.buffer = buffers.get().clear();
+        this.channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+
+        buffer.put(txtHdr);
+        buffer.put(binHdr);
+    }
+
+    /**
+     * Writes trace header followed by the trace samples.
+     * Header bytes are copied, so the array can be reused by the caller.
+     */
+    public void writeTrace(byte[] header, Trace trace) throws IOException {
+        Check.notNull(header);
+        Check.notNull(trace);
+        Check.condition(header.length == TraceHeader.TRACE_HEADER_LENGTH,
+                "Invalid trace header length");
+
+        int traceSize = header.length + sampleSize * trace.numSamples();
+        if (buffer.remaining() < traceSize) {
+            flush();
+        }
+        buffer.put(header);
+        converter.valuesInto(trace, buffer);
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (channel) {
+            flush();
+        }
+    }
+}
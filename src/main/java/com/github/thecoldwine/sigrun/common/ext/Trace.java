@@ -1,23 +1,25 @@
 package com.github.thecoldwine.sigrun.common.ext;
 
-import com.github.thecoldwine.sigrun.common.TraceHeader;
 import com.ugcs.gprvisualizer.app.meta.SampleRange;
+import com.ugcs.gprvisualizer.utils.Check;
 import org.jspecify.annotations.Nullable;
 
 import java.util.Arrays;
 
 public class Trace {
 
-    @Nullable
-    private final byte[] binHeader;
+    private static final float[] NO_SAMPLES = new float[0];
+
+    private static final byte[] NO_VALUES = new byte[0];
 
     @Nullable
-    private final TraceHeader header;
+    private final byte[] binHeader;
 
     private int index;
 
     private SampleRange sampleRange;
 
+    // resident samples, empty when samples are held by the store
     private float[] samples;
 
     /*
@@ -32,6 +34,12 @@ public class Trace {
 
     private byte[] good;
 
+    @Nullable
+    private final SampleStore store;
+
+    // index of the trace in the store
+    private final int storeIndex;
+
     private LatLon latLon;
 
     private LatLon latLonOrigin;
@@ -44,25 +52,52 @@ public class Trace {
     
     private int maxindex;
 
-    public Trace(byte @Nullable [] binHeader, @Nullable TraceHeader header,
-                 float[] samples, LatLon latLon) {
+    public Trace(byte @Nullable [] binHeader, float[] samples, LatLon latLon) {
         this.binHeader = binHeader;
-        this.header = header;
 
         this.samples = samples;
         this.edges = new byte[samples.length];
         this.good = new byte[samples.length];
+        this.store = null;
+        this.storeIndex = -1;
+
+        this.latLonOrigin = latLon;
+        this.latLon = latLon;
+    }
+
+    public Trace(byte @Nullable [] binHeader, SampleStore store, int storeIndex, LatLon latLon) {
+        this.binHeader = binHeader;
+
+        this.samples = NO_SAMPLES;
+        this.edges = NO_VALUES;
+        this.good = NO_VALUES;
+        this.store = store;
+        this.storeIndex = storeIndex;
 
         this.latLonOrigin = latLon;
         this.latLon = latLon;
     }
 
     public Trace copy() {
-        Trace copy = new Trace(
-                binHeader,
-                header,
-                Arrays.copyOf(samples, samples.length),
-                latLon);
+        Check.condition(store == null, "Trace store copy required");
+        return copy(null);
+    }
+
+    /**
+     * Copies trace; when trace samples are held by the store,
+     * copy is bound to the given copy of the store.
+     */
+    public Trace copy(@Nullable SampleStore storeCopy) {
+        Trace copy;
+        if (store != null) {
+            Check.notNull(storeCopy);
+            copy = new Trace(binHeader, storeCopy, storeIndex, latLon);
+        } else {
+            copy = new Trace(
+                    binHeader,
+                    Arrays.copyOf(samples, samples.length),
+                    latLon);
+        }
         copy.index = index;
         copy.sampleRange = sampleRange;
         copy.prevDist = prevDist;
@@ -77,8 +112,8 @@ public class Trace {
     }
 
     @Nullable
-    public TraceHeader getHeader() {
-        return header;
+    public SampleStore getSampleStore() {
+        return store;
     }
 
     public int getIndex() {
@@ -113,8 +148,26 @@ public class Trace {
         return index - sampleRange.getFrom();
     }
 
+    // number of samples regardless of the sample range
+    int numTotalSamples() {
+        return store != null
+                ? store.numSamples(storeIndex)
+                : samples.length;
+    }
+
+    // copies samples regardless of the sample range,
+    // dst should fit numTotalSamples() values
+    void getTotalSamples(float[] dst, int offset) {
+        int totalSamples = numTotalSamples();
+        if (store != null) {
+            store.getSamples(storeIndex, 0, dst, offset, totalSamples);
+            return;
+        }
+        System.arraycopy(samples, 0, dst, offset, totalSamples);
+    }
+
     public int numSamples() {
-        int totalSamples = samples.length;
+        int totalSamples = numTotalSamples();
         if (sampleRange == null) {
             return totalSamples;
         }
@@ -123,26 +176,60 @@ public class Trace {
     }
 
     public float getSample(int index) {
+        if (store != null) {
+            return store.getSample(storeIndex, localToGlobal(index));
+        }
         return samples[localToGlobal(index)];
     }
 
+    /**
+     * Copies samples of the trace to {@code dst} at {@code offset};
+     * dst should fit {@link #numSamples()} values.
+     */
+    public void getSamples(float[] dst, int offset) {
+        int numSamples = numSamples();
+        if (store != null) {
+            store.getSamples(storeIndex, localToGlobal(0), dst, offset, numSamples);
+            return;
+        }
+        System.arraycopy(samples, localToGlobal(0), dst, offset, numSamples);
+    }
+
     public void setSample(int index, float value) {
+        if (store != null) {
+            store.setSample(storeIndex, localToGlobal(index), value);
+            return;
+        }
         samples[localToGlobal(index)] = value;
     }
 
     public byte getEdge(int index) {
+        if (store != null) {
+            return store.getEdge(storeIndex, localToGlobal(index));
+        }
         return edges[localToGlobal(index)];
     }
 
     public void setEdge(int index, byte value) {
+        if (store != null) {
+            store.setEdge(storeIndex, localToGlobal(index), value);
+            return;
+        }
         edges[localToGlobal(index)] = value;
     }
 
     public byte getGood(int index) {
+        if (store != null) {
+            return store.getGood(storeIndex, localToGlobal(index));
+        }
         return good[localToGlobal(index)];
     }
 
     public void setGood(int index, byte value) {
+        if (store != null) {
+            store.setGood(storeIndex, localToGlobal(index), value);
+            return;
+        }
         good[localToGlobal(index)] = value;
     }
 
@@ -0,0 +1,400 @@
+package com.github.thecoldwine.sigrun.common.ext;
+
+import com.ugcs.gprvisualizer.utils.Check;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary cache of the trace data computed on open: normalized samples,
+ * resolved coordinates, trace distances and normalization parameters.
+ * Cache is stored next to the meta file and is valid while the source
+ * file keeps its size, modification time and content hash. Distances
+ * also depend on the meta file and are checked against its state.
+ *
+ * <p>Layout is little-endian with 8-byte aligned sections, so the
+ * cache is read through memory mappings:
+ * <pre>
+ * header      HEADER_SIZE bytes
+ * offsets     int[numTraces + 1], sample offsets of the traces
+ * latitudes   double[numTraces], NaN when unknown
+ * longitudes  double[numTraces]
+ * distances   double[numTraces]
+ * samples     float[offsets[numTraces]]
+ * </pre>
+ */
+public final class TraceCacheFile implements SampleSource {
+
+    private static final Logger log = LoggerFactory.getLogger(TraceCacheFile.class);
+
+    private static final String CACHE_FILE_EXTENSION = ".cache";
+
+    private static final int MAGIC = 0x43484847; // GHHC
+
+    private static final int VERSION = 2;
+
+    private static final int HEADER_SIZE = 128;
+
+    private static final int MAX_PARAMETERS = 4;
+
+    // bytes hashed at the start and at the end of the source
+    private static final int HASH_BLOCK_SIZE = 64 << 10;
+
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    // segments overlap by a max trace size
+    private static final long SEGMENT_OVERLAP = (long)Short.MAX_VALUE * Float.BYTES;
+
+    // header positions
+    private static final int SOURCE_SIZE_POS = 8;
+    private static final int SOURCE_MODIFIED_POS = 16;
+    private static final int SOURCE_HASH_POS = 24;
+    private static final int META_SIZE_POS = 32;
+    private static final int META_MODIFIED_POS = 40;
+    private static final int NUM_TRACES_POS = 48;
+    private static final int NUM_PARAMETERS_POS = 52;
+    private static final int PARAMETERS_POS = 56;
+    private static final int SPREAD_POS = PARAMETERS_POS + Float.BYTES * MAX_PARAMETERS;
+
+    private final int numTraces;
+
+    private final int[] offsets;
+
+    private final MappedByteBuffer columns;
+
+    private final MappedByteBuffer[] segments;
+
+    private final float[] parameters;
+
+    private final boolean distancesValid;
+
+    private final boolean spreadCoordinatesNecessary;
+
+    private TraceCacheFile(int numTraces, int[] offsets, MappedByteBuffer columns,
+            MappedByteBuffer[] segments, float[] parameters,
+            boolean distancesValid, boolean spreadCoordinatesNecessary) {
+        this.numTraces = numTraces;
+        this.offsets = offsets;
+        this.columns = columns;
+        this.segments = segments;
+        this.parameters = parameters;
+        this.distancesValid = distancesValid;
+        this.spreadCoordinatesNecessary = spreadCoordinatesNecessary;
+    }
+
+    public static Path getCachePath(Path metaPath) {
+        Check.notNull(metaPath);
+        return metaPath.resolveSibling(metaPath.getFileName() + CACHE_FILE_EXTENSION);
+    }
+
+    private static int columnsSize(int numTraces) {
+        // offsets padded to 8 bytes, followed by 3 double columns
+        int offsetsSize = align8(Integer.BYTES * (numTraces + 1));
+        return offsetsSize + 3 * Double.BYTES * numTraces;
+    }
+
+    private static int align8(int size) {
+        return (size + 7) & ~7;
+    }
+
+    /**
+     * Opens cache of the source file; returns null when there is
+     * no cache or it does not match the current state of the source.
+     */
+    @Nullable
+    public static TraceCacheFile open(Path cachePath, Path sourcePath, Path metaPath) {
+        Check.notNull(cachePath);
+        Check.notNull(sourcePath);
+        Check.notNull(metaPath);
+
+        if (!Files.isRegularFile(cachePath)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(cachePath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                return null;
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                return null;
+            }
+            BasicFileAttributes sourceAttributes = Files.readAttributes(
+                    sourcePath, BasicFileAttributes.class);
+            if (header.getLong(SOURCE_SIZE_POS) != sourceAttributes.size()
+                    || header.getLong(SOURCE_MODIFIED_POS)
+                    != sourceAttributes.lastModifiedTime().toMillis()
+                    || header.getLong(SOURCE_HASH_POS) != hash(sourcePath)) {
+                log.debug("Cache is outdated: {}", cachePath);
+                return null;
+            }
+            boolean distancesValid = header.getLong(META_SIZE_POS) == metaSize(metaPath)
+                    && header.getLong(META_MODIFIED_POS) == metaModified(metaPath);
+
+            int numTraces = header.getInt(NUM_TRACES_POS);
+            int numParameters = header.getInt(NUM_PARAMETERS_POS);
+            if (numTraces < 0 || numParameters < 0 || numParameters > MAX_PARAMETERS
+                    || HEADER_SIZE + (long)columnsSize(numTraces) > size) {
+                return null;
+            }
+            float[] parameters = new float[numParameters];
+            for (int i = 0; i < numParameters; i++) {
+                parameters[i] = header.getFloat(PARAMETERS_POS + Float.BYTES * i);
+            }
+
+            MappedByteBuffer columns = channel.map(FileChannel.MapMode.READ_ONLY,
+                    HEADER_SIZE, columnsSize(numTraces));
+            columns.order(ByteOrder.LITTLE_ENDIAN);
+            int[] offsets = new int[numTraces + 1];
+            columns.asIntBuffer().get(offsets);
+
+            long samplesPosition = HEADER_SIZE + (long)columnsSize(numTraces);
+            long samplesSize = (long)offsets[numTraces] * Float.BYTES;
+            if (samplesPosition + samplesSize != size) {
+                return null;
+            }
+            int numSegments = (int)((samplesSize + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+            MappedByteBuffer[] segments = new MappedByteBuffer[numSegments];
+            for (int i = 0; i < numSegments; i++) {
+                long start = i * SEGMENT_SIZE;
+                long length = Math.min(SEGMENT_SIZE + SEGMENT_OVERLAP, samplesSize - start);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        samplesPosition + start, length);
+                segments[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+            // mappings stay valid after the channel is closed
+            return new TraceCacheFile(numTraces, offsets, columns, segments,
+                    parameters, distancesValid, header.getInt(SPREAD_POS) != 0);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Cannot read cache {}: {}", cachePath, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes cache of the traces. Traces must be store-backed or
+     * resident traces in the order of the source file. All samples
+     * of a trace are written regardless of its sample range, as the
+     * range is applied again from the meta when the file is reopened.
+     */
+    public static void write(Path cachePath, Path sourcePath, Path metaPath,
+            List<Trace> traces, float[] parameters, boolean spreadCoordinatesNecessary)
+            throws IOException {
+        Check.notNull(cachePath);
+        Check.notNull(sourcePath);
+        Check.notNull(metaPath);
+        Check.notNull(traces);
+        Check.condition(parameters.length <= MAX_PARAMETERS);
+
+        int numTraces = traces.size();
+        BasicFileAttributes sourceAttributes = Files.readAttributes(
+                sourcePath, BasicFileAttributes.class);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(0, MAGIC);
+        header.putInt(4, VERSION);
+        header.putLong(SOURCE_SIZE_POS, sourceAttributes.size());
+        header.putLong(SOURCE_MODIFIED_POS, sourceAttributes.lastModifiedTime().toMillis());
+        header.putLong(SOURCE_HASH_POS, hash(sourcePath));
+        header.putLong(META_SIZE_POS, metaSize(metaPath));
+        header.putLong(META_MODIFIED_POS, metaModified(metaPath));
+        header.putInt(NUM_TRACES_POS, numTraces);
+        header.putInt(NUM_PARAMETERS_POS, parameters.length);
+        for (int i = 0; i < parameters.length; i++) {
+            header.putFloat(PARAMETERS_POS + Float.BYTES * i, parameters[i]);
+        }
+        header.putInt(SPREAD_POS, spreadCoordinatesNecessary ? 1 : 0);
+
+        ByteBuffer columns = ByteBuffer.allocate(columnsSize(numTraces))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        int latitudesPos = align8(Integer.BYTES * (numTraces + 1));
+        long total = 0;
+        for (int i = 0; i < numTraces; i++) {
+            Trace trace = traces.get(i);
+            columns.putInt(Integer.BYTES * i, (int)total);
+            total += trace.numTotalSamples();
+            Check.condition(total <= Integer.MAX_VALUE, "Too many samples to cache");
+
+            LatLon latLon = trace.getLatLon();
+            columns.putDouble(latitudesPos + Double.BYTES * i,
+                    latLon != null ? latLon.getLatDgr() : Double.NaN);
+            columns.putDouble(latitudesPos + Double.BYTES * (numTraces + i),
+                    latLon != null ? latLon.getLonDgr() : Double.NaN);
+            columns.putDouble(latitudesPos + Double.BYTES * (2 * numTraces + i),
+                    trace.getPrevDist());
+        }
+        columns.putInt(Integer.BYTES * numTraces, (int)total);
+
+        // write to a temporary file first, so that a partially
+        // written cache is never picked up
+        Path tmp = cachePath.resolveSibling(cachePath.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, header);
+            writeFully(channel, columns.clear());
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(4 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            float[] samples = new float[0];
+            for (Trace trace : traces) {
+                int numSamples = trace.numTotalSamples();
+                if (samples.length < numSamples) {
+                    samples = new float[numSamples];
+                }
+                trace.getTotalSamples(samples, 0);
+                for (int j = 0; j < numSamples; j++) {
+                    if (!buffer.hasRemaining()) {
+                        writeFully(channel, buffer.flip());
+                        buffer.clear();
+                    }
+                    buffer.putFloat(samples[j]);
+                }
+            }
+            writeFully(channel, buffer.flip());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, cachePath, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Rewrites distances of the cache and binds them
+     * to the current state of the meta file.
+     */
+    public static void writeDistances(Path cachePath, Path metaPath, List<Trace> traces,
+            boolean spreadCoordinatesNecessary) throws IOException {
+        Check.notNull(cachePath);
+        Check.notNull(metaPath);
+        Check.notNull(traces);
+
+        try (FileChannel channel = FileChannel.open(cachePath,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            int numTraces = header.getInt(NUM_TRACES_POS);
+            Check.condition(numTraces == traces.size(), "Cache does not match traces");
+
+            ByteBuffer distances = ByteBuffer.allocate(Double.BYTES * numTraces)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            for (Trace trace : traces) {
+                distances.putDouble(trace.getPrevDist());
+            }
+            long distancesPos = HEADER_SIZE + align8(Integer.BYTES * (numTraces + 1))
+                    + 2L * Double.BYTES * numTraces;
+            distances.flip();
+            while (distances.hasRemaining()) {
+                channel.write(distances, distancesPos + distances.position());
+            }
+
+            header.putLong(META_SIZE_POS, metaSize(metaPath));
+            header.putLong(META_MODIFIED_POS, metaModified(metaPath));
+            header.putInt(SPREAD_POS, spreadCoordinatesNecessary ? 1 : 0);
+            header.clear();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static long hash(Path sourcePath) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(sourcePath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate((int)Math.min(size, HASH_BLOCK_SIZE));
+            channel.read(buffer, 0);
+            crc.update(buffer.flip());
+            if (size > HASH_BLOCK_SIZE) {
+                buffer.clear();
+                channel.read(buffer, Math.max(HASH_BLOCK_SIZE, size - HASH_BLOCK_SIZE));
+                crc.update(buffer.flip());
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static long metaSize(Path metaPath) throws IOException {
+        return Files.exists(metaPath) ? Files.size(metaPath) : -1;
+    }
+
+    private static long metaModified(Path metaPath) throws IOException {
+        return Files.exists(metaPath) ? Files.getLastModifiedTime(metaPath).toMillis() : -1;
+    }
+
+    public float[] getParameters() {
+        return parameters.clone();
+    }
+
+    /**
+     * True when distances were computed with the current meta file.
+     */
+    public boolean hasDistances() {
+        return distancesValid;
+    }
+
+    public boolean isSpreadCoordinatesNecessary() {
+        return spreadCoordinatesNecessary;
+    }
+
+    @Override
+    public int numTraces() {
+        return numTraces;
+    }
+
+    @Override
+    public int numSamples(int trace) {
+        Check.indexInBounds(trace, numTraces);
+        return offsets[trace + 1] - offsets[trace];
+    }
+
+    @Override
+    public void read(int trace, float[] dst, int offset) {
+        int numSamples = numSamples(trace);
+        long position = (long)offsets[trace] * Float.BYTES;
+        MappedByteBuffer segment = segments[(int)(position / SEGMENT_SIZE)];
+        int local = (int)(position % SEGMENT_SIZE);
+        segment.slice(local, numSamples * Float.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .asFloatBuffer()
+                .get(dst, offset, numSamples);
+    }
+
+    @Nullable
+    public LatLon getLatLon(int trace) {
+        Check.indexInBounds(trace, numTraces);
+        int latitudesPos = align8(Integer.BYTES * (numTraces + 1));
+        double lat = columns.getDouble(latitudesPos + Double.BYTES * trace);
+        double lon = columns.getDouble(latitudesPos + Double.BYTES * (numTraces + trace));
+        return Double.isNaN(lat) || Double.isNaN(lon)
+                ? null
+                : new LatLon(lat, lon);
+    }
+
+    public double getPrevDist(int trace) {
+        Check.indexInBounds(trace, numTraces);
+        int latitudesPos = align8(Integer.BYTES * (numTraces + 1));
+        return columns.getDouble(latitudesPos + Double.BYTES * (2 * numTraces + trace));
+    }
+}
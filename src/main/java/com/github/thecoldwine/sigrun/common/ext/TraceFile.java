@@ -15,6 +15,8 @@ import com.ugcs.gprvisualizer.utils.Check;
 import com.ugcs.gprvisualizer.utils.Range;
 import com.ugcs.gprvisualizer.utils.Traces;
 import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
@@ -27,6 +29,8 @@ import java.util.Set;
 
 public abstract class TraceFile extends SgyFile {
 
+    private static final Logger log = LoggerFactory.getLogger(TraceFile.class);
+
     protected static double SPEED_SM_NS_VACUUM = 30.0;
 
     protected static double SPEED_SM_NS_SOIL = SPEED_SM_NS_VACUUM / 3.0;
@@ -40,6 +44,13 @@ public abstract class TraceFile extends SgyFile {
 
     private boolean spreadCoordinatesNecessary = false;
 
+    @Nullable
+    // when set, samples are loaded on demand through the cache
+    private SamplePageCache samplePageCache;
+
+    // when set, processed traces are cached next to the meta file
+    private boolean traceCacheEnabled = false;
+
     @Nullable
     // horizontal cohesive lines of edges
     private List<HorizontalProfile> profiles;
@@ -59,11 +70,15 @@ public abstract class TraceFile extends SgyFile {
         return metaFile;
     }
 
-    protected void loadMeta(List<Trace> traces) throws IOException {
+    public Path getMetaPath() {
         File source = getFile();
         Check.notNull(source);
 
-        Path metaPath = MetaFile.getMetaPath(source);
+        return MetaFile.getMetaPath(source);
+    }
+
+    protected void loadMeta(List<Trace> traces) throws IOException {
+        Path metaPath = getMetaPath();
         metaFile = new MetaFile();
         if (Files.exists(metaPath)) {
             // load existing meta
@@ -79,9 +94,6 @@ public abstract class TraceFile extends SgyFile {
     public void saveMeta() throws IOException {
         Check.notNull(metaFile);
 
-        File source = getFile();
-        Check.notNull(source);
-
         // update sample range
         SampleRange sampleRange = Traces.maxSampleRange(getTraces());
         metaFile.setSampleRange(sampleRange);
@@ -90,8 +102,7 @@ public abstract class TraceFile extends SgyFile {
         Set<Integer> marks = AuxElements.getMarkIndices(getAuxElements());
         metaFile.setMarks(marks);
 
-        Path metaPath = MetaFile.getMetaPath(source);
-        metaFile.save(metaPath);
+        metaFile.save(getMetaPath());
     }
 
     public void updateTracesFromMeta() {
@@ -100,6 +111,80 @@ public abstract class TraceFile extends SgyFile {
         }
     }
 
+    public @Nullable SamplePageCache getSamplePageCache() {
+        return samplePageCache;
+    }
+
+    public void setSamplePageCache(@Nullable SamplePageCache samplePageCache) {
+        this.samplePageCache = samplePageCache;
+    }
+
+    public boolean isTraceCacheEnabled() {
+        return traceCacheEnabled;
+    }
+
+    public void setTraceCacheEnabled(boolean traceCacheEnabled) {
+        this.traceCacheEnabled = traceCacheEnabled;
+    }
+
+    public Path getTraceCachePath() {
+        return TraceCacheFile.getCachePath(getMetaPath());
+    }
+
+    /**
+     * Opens trace cache of the file when caching is enabled
+     * and the cache matches the source file.
+     */
+    protected @Nullable TraceCacheFile openTraceCache() {
+        if (!traceCacheEnabled) {
+            return null;
+        }
+        File source = Check.notNull(getFile());
+        return TraceCacheFile.open(getTraceCachePath(), source.toPath(), getMetaPath());
+    }
+
+    /**
+     * Writes samples, coordinates and distances of the source traces
+     * to the trace cache. Failures are not fatal for opening a file.
+     */
+    protected void saveTraceCache(float[] parameters) {
+        if (!traceCacheEnabled) {
+            return;
+        }
+        File source = Check.notNull(getFile());
+        try {
+            TraceCacheFile.write(getTraceCachePath(), source.toPath(), getMetaPath(),
+                    traces, parameters, isSpreadCoordinatesNecessary());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Cannot write trace cache of {}: {}", source.getName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Restores trace distances from the cache when they were computed
+     * with the current meta, otherwise calculates them and updates
+     * the cache.
+     */
+    protected void updateTraceDistances(TraceCacheFile traceCache) {
+        Check.notNull(traceCache);
+
+        if (traceCache.hasDistances() && traceCache.numTraces() == traces.size()) {
+            for (int i = 0; i < traces.size(); i++) {
+                traces.get(i).setPrevDist(traceCache.getPrevDist(i));
+            }
+            setSpreadCoordinatesNecessary(traceCache.isSpreadCoordinatesNecessary());
+            return;
+        }
+
+        updateTraceDistances();
+        try {
+            TraceCacheFile.writeDistances(getTraceCachePath(), getMetaPath(), traces,
+                    isSpreadCoordinatesNecessary());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Cannot update trace cache: {}", e.getMessage());
+        }
+    }
+
     public abstract int getSampleInterval();
 
     public abstract double getSamplesToCmGrn();
@@ -198,7 +283,10 @@ public abstract class TraceFile extends SgyFile {
 
     public void setTraces(List<Trace> traces) {
         this.traces = traces;
-        new EdgeFinder().execute(this, null);
+        // paged stores find edges when samples are loaded
+        if (!(Traces.getSampleStore(traces) instanceof PagedSampleStore)) {
+            new EdgeFinder().execute(this, null);
+        }
     }
 
     public void updateTraces() {
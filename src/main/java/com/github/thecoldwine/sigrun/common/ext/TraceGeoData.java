@@ -2,19 +2,12 @@ package com.github.thecoldwine.sigrun.common.ext;
 
 import com.ugcs.gprvisualizer.app.parcers.GeoCoordinates;
 import com.ugcs.gprvisualizer.app.parcers.GeoData;
-import com.ugcs.gprvisualizer.app.parcers.SensorValue;
-
-import java.util.ArrayList;
-import java.util.List;
+import com.ugcs.gprvisualizer.app.parcers.SensorTable;
 
 public class TraceGeoData extends GeoData {
 
     private int traceIndex;
 
-    private static List<SensorValue> newSensorValues() {
-        return new ArrayList<>();
-    }
-
     private static GeoCoordinates newGeoCoordinates(double latitude, double longitude) {
         return new GeoCoordinates(
                 latitude,
@@ -26,11 +19,12 @@ public class TraceGeoData extends GeoData {
         );
     }
 
-    public TraceGeoData(int traceIndex) {
+    public TraceGeoData(SensorTable sensorTable, int row, int traceIndex) {
         super(
                 false,
                 0,
-                newSensorValues(),
+                sensorTable,
+                row,
                 newGeoCoordinates(0, 0)
 
         );
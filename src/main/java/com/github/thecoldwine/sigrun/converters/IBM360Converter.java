@@ -3,6 +3,8 @@ package com.github.thecoldwine.sigrun.converters;
 import com.github.thecoldwine.sigrun.common.ext.Trace;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
 
 /**
  * Class that converts IBM360 single precision floating point to IEEE 754 floating point.
@@ -12,6 +14,11 @@ public class IBM360Converter implements SeismicValuesConverter {
     public static final int IBM_EXPO_MASK = 0x7F000000;
     public static final int IBM_FRAC_MASK = 0x00FFFFFF;
 
+    // raw values of the decoded buffer, per thread so that
+    // the converter can be shared between threads
+    private static final ThreadLocal<int[]> scratch
+            = ThreadLocal.withInitial(() -> new int[0]);
+
     public static int convert(int bits) {
         int to;
 
@@ -34,10 +41,10 @@ public class IBM360Converter implements SeismicValuesConverter {
 
         exp = (exp << 2) - 130;
 
-        while (fraction > 0) {
-            --exp;
-            fraction <<= 1;
-        }
+        // normalize: shift until the high bit is set
+        int shift = Integer.numberOfLeadingZeros(fraction);
+        exp -= shift;
+        fraction <<= shift;
 
         if (exp <= 0) {
             if (exp < -24) /* complete underflow - return properly signed zero */
@@ -68,16 +75,34 @@ public class IBM360Converter implements SeismicValuesConverter {
         }
 
         float[] result = new float[bytes.length / FLOAT_SIZE];
+        convertInto(ByteBuffer.wrap(bytes), result, 0);
+        return result;
+    }
 
-        ByteBuffer bits = ByteBuffer.wrap(bytes);
-        for (int i = 0; i < result.length; i++) {
-            result[i] = Float.intBitsToFloat(convert(bits.getInt()));
+    @Override
+    public int convertInto(ByteBuffer src, float[] dst, int offset) {
+        IntBuffer values = src.slice().order(ByteOrder.BIG_ENDIAN).asIntBuffer();
+        int n = values.remaining();
+        // bulk copy with byte swap, then decode in a plain loop
+        int[] bits = scratch.get();
+        if (bits.length < n) {
+            bits = new int[n];
+            scratch.set(bits);
         }
-
-        return result;
+        values.get(bits, 0, n);
+        for (int i = 0; i < n; i++) {
+            dst[offset + i] = Float.intBitsToFloat(convert(bits[i]));
+        }
+        src.position(src.position() + n * INT_SIZE);
+        return n;
     }
     
     public ByteBuffer valuesToByteBuffer(Trace trace) {
     	throw new RuntimeException("unsuported");
     }
+
+    @Override
+    public void valuesInto(Trace trace, ByteBuffer dst) {
+    	throw new RuntimeException("unsuported");
+    }
 }
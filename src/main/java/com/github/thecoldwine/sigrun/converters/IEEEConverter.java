@@ -3,12 +3,16 @@ package com.github.thecoldwine.sigrun.converters;
 import com.github.thecoldwine.sigrun.common.ext.Trace;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 
 /**
  * Created by maksenov on 17/01/15.
  */
 public class IEEEConverter implements SeismicValuesConverter {
+
+    private static final float SCALE = 10000;
+
     @Override
     public float[] convert(byte[] bytes) {
         if (bytes == null) {
@@ -20,17 +24,29 @@ public class IEEEConverter implements SeismicValuesConverter {
         }
 
         float[] result = new float[bytes.length / FLOAT_SIZE];
+        convertInto(ByteBuffer.wrap(bytes), result, 0);
+        return result;
+    }
 
-        FloatBuffer floatBuffer = ByteBuffer.wrap(bytes).asFloatBuffer();
-
-        for (int i = 0; i < result.length; i++) {
-            result[i] = floatBuffer.get() * 10000;
+    @Override
+    public int convertInto(ByteBuffer src, float[] dst, int offset) {
+        FloatBuffer values = src.slice().order(ByteOrder.BIG_ENDIAN).asFloatBuffer();
+        int n = values.remaining();
+        // bulk copy with byte swap, then scale in a plain loop
+        values.get(dst, offset, n);
+        for (int i = offset; i < offset + n; i++) {
+            dst[i] *= SCALE;
         }
-
-        return result;
+        src.position(src.position() + n * FLOAT_SIZE);
+        return n;
     }
     
     public ByteBuffer valuesToByteBuffer(Trace trace) {
     	throw new RuntimeException("unsuported");
     }
+
+    @Override
+    public void valuesInto(Trace trace, ByteBuffer dst) {
+    	throw new RuntimeException("unsuported");
+    }
 }
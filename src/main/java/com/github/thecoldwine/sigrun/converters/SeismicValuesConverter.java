@@ -15,6 +15,23 @@ public interface SeismicValuesConverter {
 
 
     float[] convert(byte[] bytes);
+
+    /**
+     * Decodes values remaining in the source buffer into the destination
+     * array starting at the offset. Source buffer may be a heap, direct
+     * or mapped buffer; its position is advanced past the decoded values,
+     * byte order of the buffer is ignored.
+     *
+     * @return number of decoded values
+     */
+    int convertInto(ByteBuffer src, float[] dst, int offset);
     
     ByteBuffer valuesToByteBuffer(Trace trace);
+
+    /**
+     * Encodes trace samples into the destination buffer starting
+     * at its position; position is advanced past the written values.
+     * Buffer must have at least numSamples * sample size bytes remaining.
+     */
+    void valuesInto(Trace trace, ByteBuffer dst);
 }
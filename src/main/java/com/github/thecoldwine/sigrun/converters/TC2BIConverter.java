@@ -4,32 +4,52 @@ import com.github.thecoldwine.sigrun.common.ext.Trace;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
 
 public class TC2BIConverter implements SeismicValuesConverter{
 
+	// raw values of the decoded buffer, per thread so that
+	// the converter can be shared between threads
+	private static final ThreadLocal<short[]> scratch
+			= ThreadLocal.withInitial(() -> new short[0]);
+
 	@Override
 	public float[] convert(byte[] bytes) {
-		
-		
         float[] result = new float[bytes.length / 2];
-
-        ByteBuffer bits = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
-        
-        for (int i = 0; i < result.length; i++) {
-        	int val = bits.getShort();
-            result[i] = val;
-        }
-		
+        convertInto(ByteBuffer.wrap(bytes), result, 0);
 		return result;
 	}
 
-	public ByteBuffer valuesToByteBuffer(Trace trace) {
-		ByteBuffer bb = ByteBuffer
-				.allocate(trace.numSamples() * 2)
-				.order(ByteOrder.LITTLE_ENDIAN);
-		for (int i = 0; i < trace.numSamples(); i++) {
-			bb.putShort((short)trace.getSample(i));
+	@Override
+	public int convertInto(ByteBuffer src, float[] dst, int offset) {
+		ShortBuffer values = src.slice().order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+		int n = values.remaining();
+		short[] raw = scratch.get();
+		if (raw.length < n) {
+			raw = new short[n];
+			scratch.set(raw);
+		}
+		values.get(raw, 0, n);
+		for (int i = 0; i < n; i++) {
+			dst[offset + i] = raw[i];
 		}
+		src.position(src.position() + n * SHORT_SIZE);
+		return n;
+	}
+
+	public ByteBuffer valuesToByteBuffer(Trace trace) {
+		ByteBuffer bb = ByteBuffer.allocate(trace.numSamples() * 2);
+		valuesInto(trace, bb);
 		return bb;
 	}
+
+	@Override
+	public void valuesInto(Trace trace, ByteBuffer dst) {
+		int n = trace.numSamples();
+		ShortBuffer values = dst.slice().order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+		for (int i = 0; i < n; i++) {
+			values.put(i, (short)trace.getSample(i));
+		}
+		dst.position(dst.position() + n * SHORT_SIZE);
+	}
 }
@@ -4,39 +4,59 @@ import com.github.thecoldwine.sigrun.common.ext.Trace;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.IntBuffer;
 
 public class TC4BIConverter implements SeismicValuesConverter {
 
+	// raw values of the decoded buffer, per thread so that
+	// the converter can be shared between threads
+	private static final ThreadLocal<int[]> scratch
+			= ThreadLocal.withInitial(() -> new int[0]);
+
 	@Override
 	public float[] convert(byte[] bytes) {
-		
-		
         float[] result = new float[bytes.length / 4];
+        convertInto(ByteBuffer.wrap(bytes), result, 0);
+		return result;
+	}
 
-        ByteBuffer bits = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
-        
-        bits.getInt();
-        for (int i = 1; i < result.length; i++) {
-        	
-        	int val = bits.getInt();
-        	
-            result[i] = val;
+	@Override
+	public int convertInto(ByteBuffer src, float[] dst, int offset) {
+		IntBuffer values = src.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+		int n = values.remaining();
+		int[] raw = scratch.get();
+		if (raw.length < n) {
+			raw = new int[n];
+			scratch.set(raw);
+		}
+		values.get(raw, 0, n);
+		// first value is skipped
+		if (n > 0) {
+			dst[offset] = 0;
+		}
+		for (int i = 1; i < n; i++) {
+			dst[offset + i] = raw[i];
             //(val + 33_554_432) / 8192.0f;
-        }
-		
-		return result;
+		}
+		src.position(src.position() + n * INT_SIZE);
+		return n;
 	}
 	
 	public ByteBuffer valuesToByteBuffer(Trace trace) {
-		ByteBuffer bb = ByteBuffer
-				.allocate(trace.numSamples() * 4)
-				.order(ByteOrder.LITTLE_ENDIAN);
-		for (int i = 0; i < trace.numSamples(); i++) {
+		ByteBuffer bb = ByteBuffer.allocate(trace.numSamples() * 4);
+		valuesInto(trace, bb);
+		return bb;
+	}
+
+	@Override
+	public void valuesInto(Trace trace, ByteBuffer dst) {
+		int n = trace.numSamples();
+		IntBuffer values = dst.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+		for (int i = 0; i < n; i++) {
 			//(val + 33_554_432) / 8192.0f
 			//int v = (int) (values[i] * 8192.0f) - 33_554_432;
-			int v = (int)trace.getSample(i);
-			bb.putInt(v);
+			values.put(i, (int)trace.getSample(i));
 		}
-		return bb;
+		dst.position(dst.position() + n * INT_SIZE);
 	}
 }
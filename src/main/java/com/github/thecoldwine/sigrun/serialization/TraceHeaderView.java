@@ -0,0 +1,105 @@
+package com.github.thecoldwine.sigrun.serialization;
+
+import com.github.thecoldwine.sigrun.common.TraceHeader;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Flyweight view of the trace header bytes. Unlike {@link TraceHeaderReader}
+ * fields are not decoded up front but read on demand at the positions
+ * given by the format. A view can be rebound to other header bytes,
+ * so a single instance serves all traces of a file.
+ */
+public final class TraceHeaderView {
+
+    public static final int LONGITUDE_POS = 182;
+
+    public static final int LATITUDE_POS = 190;
+
+    public static final int MARK_POS = 238;
+
+    private static final VarHandle SHORT
+            = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final VarHandle FLOAT
+            = MethodHandles.byteArrayViewVarHandle(float[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final VarHandle DOUBLE
+            = MethodHandles.byteArrayViewVarHandle(double[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final TraceHeaderFormat format;
+
+    private byte[] bytes = new byte[TraceHeader.TRACE_HEADER_LENGTH];
+
+    public TraceHeaderView(TraceHeaderFormat format) {
+        if (format == null) {
+            throw new IllegalArgumentException("Format cannot be null");
+        }
+        this.format = format;
+    }
+
+    /**
+     * Binds view to the header bytes, bytes are not copied.
+     */
+    public TraceHeaderView wrap(byte[] bytes) {
+        if (bytes == null || bytes.length < TraceHeader.TRACE_HEADER_LENGTH) {
+            throw new IllegalArgumentException("Invalid trace header");
+        }
+        this.bytes = bytes;
+        return this;
+    }
+
+    public short getShort(int pos) {
+        return (short) SHORT.get(bytes, pos);
+    }
+
+    public float getFloat(int pos) {
+        return (float) FLOAT.get(bytes, pos);
+    }
+
+    public double getDouble(int pos) {
+        return (double) DOUBLE.get(bytes, pos);
+    }
+
+    public short getShort(FormatEntry entry, short defaultValue) {
+        return entry != null ? getShort(entry.posStart) : defaultValue;
+    }
+
+    public float getFloat(FormatEntry entry, float defaultValue) {
+        return entry != null ? getFloat(entry.posStart) : defaultValue;
+    }
+
+    public double getLongitude() {
+        return getDouble(LONGITUDE_POS);
+    }
+
+    public double getLatitude() {
+        return getDouble(LATITUDE_POS);
+    }
+
+    public boolean hasSourceCoordinates() {
+        return format.sourceXFormat != null && format.sourceYFormat != null;
+    }
+
+    public float getSourceX() {
+        return getFloat(format.sourceXFormat, 0f);
+    }
+
+    public float getSourceY() {
+        return getFloat(format.sourceYFormat, 0f);
+    }
+
+    public boolean hasScalarForCoordinates() {
+        return format.scalarForCoordinatesFormat != null;
+    }
+
+    public short getScalarForCoordinates() {
+        return getShort(format.scalarForCoordinatesFormat, (short) 0);
+    }
+
+    public boolean isMarked() {
+        return bytes[MARK_POS] != 0;
+    }
+}
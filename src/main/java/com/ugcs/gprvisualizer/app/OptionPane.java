@@ -748,14 +748,19 @@ public class OptionPane extends VBox implements InitializingBean {
 	}
 
 	public void griddingProgress(boolean inProgress) {
+		// gridding buttons stay enabled, a new job
+		// supersedes the running one
 		Platform.runLater(() -> {
-			showGriddingButton.setDisable(inProgress);
-			showGriddingAllButton.setDisable(inProgress);
+			griddingProgressIndicator.setProgress(ProgressIndicator.INDETERMINATE_PROGRESS);
 			griddingProgressIndicator.setVisible(inProgress);
 			griddingProgressIndicator.setManaged(inProgress);
 		});
 	}
 
+	public void griddingProgress(double progress) {
+		Platform.runLater(() -> griddingProgressIndicator.setProgress(progress));
+	}
+
 	static class FilterActions {
 		Predicate<String> constraint = v -> true;
 		Consumer<String> apply;
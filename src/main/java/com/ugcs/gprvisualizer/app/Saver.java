@@ -217,6 +217,10 @@ public class Saver implements ToolProducer, InitializingBean {
 
 		String baseName = FileNames.removeExtension(file.getName());
 		String extension = FileNames.getExtension(file.getName());
+		if (traceFile instanceof DztFile dztFile) {
+			// channels of a multi-channel file are saved separately
+			baseName += dztFile.getChannelSuffix();
+		}
 
 		// TODO copy required only for denormalization
 		//  of samples before save
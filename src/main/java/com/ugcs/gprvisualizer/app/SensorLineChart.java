@@ -42,7 +42,7 @@ import org.springframework.context.ApplicationEventPublisher;
 
 import com.ugcs.gprvisualizer.app.fir.FIRFilter;
 import com.ugcs.gprvisualizer.app.parcers.GeoData;
-import com.ugcs.gprvisualizer.app.parcers.SensorValue;
+import com.ugcs.gprvisualizer.app.parcers.SensorTable;
 import com.ugcs.gprvisualizer.gpr.Model;
 import com.ugcs.gprvisualizer.gpr.PrefSettings;
 
@@ -137,13 +137,29 @@ public class SensorLineChart extends Chart {
         record PlotKey(String semantic, String units) {}
 
         Map<PlotKey, List<Number>> sensorValues = new LinkedHashMap<>();
+        // value lists by column of the sensor table,
+        // resolved once per table
+        SensorTable table = null;
+        List<List<Number>> columnValues = new ArrayList<>();
         for (GeoData data : csvFile.getGeoData()) {
-            for (SensorValue value : data.getSensorValues()) {
-                PlotKey plotKey = new PlotKey(
-                        value.semantic(),
-                        Strings.nullToEmpty(value.units()));
-                sensorValues.computeIfAbsent(plotKey, k -> new ArrayList<>())
-                        .add(value.data());
+            if (data.getSensorTable() != table) {
+                table = data.getSensorTable();
+                columnValues = new ArrayList<>(Collections.nCopies(table.numColumns(), null));
+            }
+            int row = data.getRow();
+            for (int c = 0; c < columnValues.size(); c++) {
+                if (!table.isPresent(c, row)) {
+                    continue;
+                }
+                List<Number> values = columnValues.get(c);
+                if (values == null) {
+                    PlotKey plotKey = new PlotKey(
+                            table.getSemantic(c),
+                            Strings.nullToEmpty(table.getUnits(c)));
+                    values = sensorValues.computeIfAbsent(plotKey, k -> new ArrayList<>());
+                    columnValues.set(c, values);
+                }
+                values.add(table.getNumber(c, row));
             }
         }
 
@@ -43,6 +43,25 @@ public class EdgeFinder implements Command {
 		}		
 	}
 
+	public static void findEdges(float[] samples, byte[] edges) {
+		int mxind = 0;
+		for (int s = 1; s < samples.length; s++) {
+			
+			byte s1 = (byte) Math.signum(samples[s - 1]);
+			byte s2 = (byte) Math.signum(samples[s]);
+			
+			if (s1 != s2) {
+				edges[s] = s1 > s2 ? (byte) 1 : 2;
+				edges[mxind] = samples[mxind] < 0 ? (byte) 3 : 4;
+				mxind = s;
+			}
+			
+			if (Math.abs(samples[mxind]) < Math.abs(samples[s])) {
+				mxind = s;
+			}
+		}
+	}
+
 	@Override
 	public String getButtonText() {
 		
@@ -34,15 +34,20 @@ public class RadarMapScan implements Command {
 			int finish = Math.clamp(field.getProfileSettings().getLayer() + field.getProfileSettings().hpage,
 					0, field.getMaxHeightInSamples());
 
+			float[] samples = new float[0];
 			for (int i = 0; i < file.numTraces(); i++) {
 				Trace trace = file.getTraces().get(i);
-				double alpha = calcAlpha(trace, start, finish, field.getProfileSettings(), scaleBuilder.build(file));
+				if (samples.length < trace.numSamples()) {
+					samples = new float[trace.numSamples()];
+				}
+				trace.getSamples(samples, 0);
+				double alpha = calcAlpha(trace, samples, start, finish, field.getProfileSettings(), scaleBuilder.build(file));
 				file.getAmplScan().intensity[i] = alpha;
 			}
 		}
 	}
 
-	private double calcAlpha(Trace trace, int start, int finish, Settings profileSettings, double[][] scaleArray) {
+	private double calcAlpha(Trace trace, float[] samples, int start, int finish, Settings profileSettings, double[][] scaleArray) {
 		double mx = 0;
 
 		start = Math.clamp(start, 0, trace.numSamples());
@@ -55,7 +60,7 @@ public class RadarMapScan implements Command {
 			double factor = scaleArray[1][i];		
 			
 			if (trace.getEdge(i) != 0) {
-				double av = Math.abs(trace.getSample(i));
+				double av = Math.abs(samples[i]);
 				if (av < additionalThreshold) {
 					av = 0;
 				}
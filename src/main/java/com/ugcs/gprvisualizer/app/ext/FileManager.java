@@ -5,15 +5,22 @@ import com.ugcs.gprvisualizer.app.ProgressListener;
 import com.ugcs.gprvisualizer.app.yaml.FileTemplates;
 import com.ugcs.gprvisualizer.dzt.DztFile;
 import com.ugcs.gprvisualizer.event.FileOpenErrorEvent;
+import com.ugcs.gprvisualizer.utils.Traces;
 import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.io.FilenameFilter;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 @Component
@@ -34,6 +41,19 @@ public class FileManager {
 
 	private final FileTemplates fileTemplates;
 
+	// memory budget for trace samples loaded on demand, in MB;
+	// zero disables on-demand loading
+	@Value("${trace.samples.cache-size:2048}")
+	private long samplesCacheSize;
+
+	@Nullable
+	private SamplePageCache samplePageCache;
+
+	// cache processed traces next to the meta files
+	// for faster reopening
+	@Value("${trace.cache.enabled:false}")
+	private boolean traceCacheEnabled;
+
     private final ApplicationEventPublisher eventPublisher;
 
 	FileManager(FileTemplates fileTemplates, ApplicationEventPublisher eventPublisher) {
@@ -48,63 +68,135 @@ public class FileManager {
 	public void processList(List<File> fileList, ProgressListener listener) throws Exception {
 		Set<File> sf = new TreeSet<>(fileList);
 
+		List<File> filesToOpen = new ArrayList<>();
 		for (File fl : sf) {
 			if (fl.isDirectory()) {
-				processDirectory(fl, listener);
+				filesToOpen.addAll(listDirectory(fl, listener));
 			} else {
-				listener.progressMsg("load file " + fl.getAbsolutePath());
-				processFile(fl);
+				filesToOpen.add(fl);
 			}
 		}
+		processFileList(filesToOpen, listener);
+	}
+
+	@Nullable
+	private synchronized SamplePageCache getSamplePageCache() {
+		if (samplePageCache == null && samplesCacheSize > 0) {
+			samplePageCache = new SamplePageCache(samplesCacheSize << 20);
+		}
+		return samplePageCache;
+	}
+
+	private void releaseSamples(SgyFile sgyFile) {
+		if (sgyFile instanceof TraceFile traceFile
+				&& Traces.getSampleStore(traceFile.getTraces()) instanceof PagedSampleStore store) {
+			store.release();
+		}
 	}
 
 	public void clear() {
 		//levelCalculated = false;
+		files.forEach(this::releaseSamples);
 		files.clear(); // = new ArrayList<>();
 		topFolder = null;
 	}
 
-	private void processDirectory(File fl, ProgressListener listener) throws Exception {
+	private List<File> listDirectory(File fl, ProgressListener listener) {
 		if (topFolder == null) {
 			topFolder = fl;
 		}
 
 		listener.progressMsg("load directory " + fl.getAbsolutePath());
 
-		processFileList(Arrays.asList(fl.listFiles(SGY)));
+		File[] dirFiles = fl.listFiles(SGY);
+		return dirFiles != null ? Arrays.asList(dirFiles) : List.of();
 	}
 
-	private void processFile(File fl) throws Exception {
-		TraceFile sgyFile = null;
+	/**
+	 * Opens trace files of the source file. Multi-channel DZT
+	 * files are opened as a separate trace file per channel.
+	 */
+	private List<TraceFile> openFile(File fl) throws Exception {
+		List<TraceFile> traceFiles = new ArrayList<>();
 		if (fl.getName().toLowerCase().endsWith("sgy")) {
-			sgyFile = new GprFile();
+			traceFiles.add(openTraceFile(new GprFile(), fl));
 		} else if (fl.getName().toLowerCase().endsWith("dzt")) {
-			sgyFile = new DztFile();
-		} 
-		
-		if (sgyFile == null) {
-			return;
+			DztFile dztFile = openTraceFile(new DztFile(), fl);
+			traceFiles.add(dztFile);
+			for (int channel = 1; channel < dztFile.getNumChannels(); channel++) {
+				traceFiles.add(openTraceFile(new DztFile(channel), fl));
+			}
 		}
+		return traceFiles;
+	}
+
+	private <T extends TraceFile> T openTraceFile(T sgyFile, File fl) throws Exception {
+		sgyFile.setSamplePageCache(getSamplePageCache());
+		sgyFile.setTraceCacheEnabled(traceCacheEnabled);
+		sgyFile.open(fl);
 
 		try {
-            sgyFile.open(fl);
+			new PositionFile(fileTemplates).load(sgyFile);
+		} catch (Exception e) {
+			log.warn("Error loading markup or position files: {}", e.getMessage());
+		}
+		return sgyFile;
+	}
 
-            files.add(sgyFile);
+	/**
+	 * Opens files concurrently and adds them to the list of files
+	 * in the order of the file list. On a first failure error
+	 * is reported, remaining files are not added.
+	 */
+	private void processFileList(List<File> fileList, ProgressListener listener) throws Exception {
+		if (fileList.isEmpty()) {
+			return;
+		}
 
-            try {
-                new  PositionFile(fileTemplates).load(sgyFile);
-            } catch (Exception e) {
-                log.warn("Error loading markup or position files: {}", e.getMessage());
-            }
-        } catch (Exception e) {
-            eventPublisher.publishEvent(new FileOpenErrorEvent(this, fl, e));
-            throw e;
-        }
+		int numThreads = Math.min(fileList.size(),
+				Math.max(1, Runtime.getRuntime().availableProcessors()));
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		try {
+			AtomicInteger numOpened = new AtomicInteger();
+			List<Future<List<TraceFile>>> futures = new ArrayList<>(fileList.size());
+			for (File fl : fileList) {
+				futures.add(executor.submit(() -> {
+					listener.progressSubMsg(fl.getName());
+					List<TraceFile> traceFiles = openFile(fl);
+					int n = numOpened.incrementAndGet();
+					listener.progressMsg("load file " + n + "/" + fileList.size()
+							+ " " + fl.getAbsolutePath());
+					listener.progressPercent(100 * n / fileList.size());
+					return traceFiles;
+				}));
+			}
+
+			for (int i = 0; i < fileList.size(); i++) {
+				File fl = fileList.get(i);
+				List<TraceFile> traceFiles;
+				try {
+					traceFiles = getResult(futures.get(i));
+				} catch (Exception e) {
+					futures.forEach(f -> f.cancel(true));
+					eventPublisher.publishEvent(new FileOpenErrorEvent(this, fl, e));
+					throw e;
+				}
+				files.addAll(traceFiles);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
 	}
 
-	private void processFileList(List<File> fileList) throws Exception {
-		for (File fl : fileList) {
-			processFile(fl);
+	private static <T> T getResult(Future<T> future) throws Exception {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof Exception ex) {
+				throw ex;
+			}
+			throw e;
 		}
 	}
 
@@ -129,6 +221,7 @@ public class FileManager {
 	}
 
 	public void removeFile(SgyFile sgyFile) {
+		releaseSamples(sgyFile);
 		files.remove(sgyFile);
 	}
 
@@ -15,6 +15,9 @@ public class TraceMeta {
     @Expose
     private List<TraceMark> marks;
 
+    @Expose
+    private Float sampleAvg;
+
     public SampleRange getSampleRange() {
         return sampleRange;
     }
@@ -38,4 +41,12 @@ public class TraceMeta {
     public void setMarks(List<TraceMark> marks) {
         this.marks = marks;
     }
+
+    public Float getSampleAvg() {
+        return sampleAvg;
+    }
+
+    public void setSampleAvg(Float sampleAvg) {
+        this.sampleAvg = sampleAvg;
+    }
 }
@@ -4,6 +4,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import com.ugcs.gprvisualizer.utils.Check;
+
 public class GeoData extends GeoCoordinates {
 
     public enum Semantic {
@@ -23,8 +25,13 @@ public class GeoData extends GeoCoordinates {
         }
     }
 
-    private final List<SensorValue> sensorValues;
-    
+    /**
+     * Sensor values of the file, this value is a view of the table row
+     */
+    private final SensorTable sensorTable;
+
+    private final int row;
+
     /** 
      * Line number in the source file
      */
@@ -32,27 +39,64 @@ public class GeoData extends GeoCoordinates {
 
     private final boolean marked;
 
-    public GeoData(boolean marked, int lineNumber, List<SensorValue> sensorValues, GeoCoordinates geoCoordinates) {
+    public GeoData(boolean marked, int lineNumber, SensorTable sensorTable, int row, GeoCoordinates geoCoordinates) {
         super(geoCoordinates.getLatitude(), geoCoordinates.getLongitude(), geoCoordinates.getAltitude(), geoCoordinates.getTimeInMs(), geoCoordinates.getTraceNumber(), geoCoordinates.getDateTime());
-        this.sensorValues = sensorValues;
+        Check.notNull(sensorTable);
+        Check.indexInBounds(row, sensorTable.numRows());
+
+        this.sensorTable = sensorTable;
+        this.row = row;
         this.lineNumber = lineNumber;
         this.marked = marked;
     }
 
-    public GeoData(GeoData geoData) {
+    /**
+     * Creates a view of the same row in another table,
+     * for the copies of the sensor table.
+     */
+    public GeoData(GeoData geoData, SensorTable sensorTable) {
         super(geoData.getLatitude(), geoData.getLongitude(), geoData.getAltitude(), geoData.getTimeInMs(), geoData.getTraceNumber(), geoData.getDateTime());
-        this.sensorValues = new ArrayList<>();
-        for (SensorValue sensorValue : geoData.sensorValues) {
-            sensorValues.add(new SensorValue(sensorValue));
-        }
+        Check.notNull(sensorTable);
+        Check.indexInBounds(geoData.row, sensorTable.numRows());
+
+        this.sensorTable = sensorTable;
+        this.row = geoData.row;
         this.lineNumber = geoData.lineNumber;
         this.marked = geoData.marked;
     }
 
+    public SensorTable getSensorTable() {
+        return sensorTable;
+    }
+
+    /**
+     * Index of the row in the sensor table
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * Returns present sensor values of the row in order of the table columns.
+     */
     public List<SensorValue> getSensorValues() {
+        List<SensorValue> sensorValues = new ArrayList<>(sensorTable.numColumns());
+        for (int column = 0; column < sensorTable.numColumns(); column++) {
+            if (sensorTable.isPresent(column, row)) {
+                sensorValues.add(toSensorValue(column));
+            }
+        }
         return sensorValues;
     }
 
+    private SensorValue toSensorValue(int column) {
+        return new SensorValue(
+                sensorTable.getSemantic(column),
+                sensorTable.getUnits(column),
+                sensorTable.getNumber(column, row),
+                sensorTable.getOriginalNumber(column, row));
+    }
+
     public int getLineNumber() {
         return lineNumber;
     }
@@ -66,9 +110,9 @@ public class GeoData extends GeoCoordinates {
     }
 
     public Optional<Integer> getLineIndex() {
-        SensorValue line = getSensorValue(Semantic.LINE);
-        return line != null && line.data() != null
-                ? Optional.of(line.data().intValue())
+        int column = sensorTable.getColumn(Semantic.LINE.name);
+        return column != -1 && sensorTable.hasValue(column, row)
+                ? Optional.of((int) sensorTable.getDouble(column, row))
                 : Optional.empty();
     }
 
@@ -81,34 +125,24 @@ public class GeoData extends GeoCoordinates {
     }
 
     public SensorValue getSensorValue(String semantic) {
-        SensorValue result = null;
-        for(SensorValue sensorValue : sensorValues) {
-            if (semantic.equals(sensorValue.semantic())) {
-                result = sensorValue;
-                break;
-            }
-        }
-        return result;
+        int column = sensorTable.getColumn(semantic);
+        return column != -1 && sensorTable.isPresent(column, row)
+                ? toSensorValue(column)
+                : null;
     }
 
     public void setSensorValue(String semantic, Number value) {
-        for(SensorValue sensorValue : sensorValues) {
-            if (semantic.equals(sensorValue.semantic())) {
-                sensorValues.add(sensorValue.withValue(value));
-                sensorValues.remove(sensorValue);
-                return;
-            }
+        int column = sensorTable.getColumn(semantic);
+        if (column == -1) {
+            column = sensorTable.addColumn(semantic, "");
         }
-        sensorValues.add(new SensorValue(semantic, "", value, value));
+        sensorTable.setValue(column, row, value);
     }
 
     public void undoSensorValue(String semantic) {
-        for(SensorValue sensorValue : sensorValues) {
-            if (semantic.equals(sensorValue.semantic())) {
-                sensorValues.add(sensorValue.withValue(sensorValue.originalData()));
-                sensorValues.remove(sensorValue);
-                break;
-            }
+        int column = sensorTable.getColumn(semantic);
+        if (column != -1 && sensorTable.isPresent(column, row)) {
+            sensorTable.undo(column, row);
         }
     }
 
@@ -13,6 +13,9 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -46,6 +49,25 @@ public abstract class Parser implements IGeoCoordinateParser {
 
     private int countOfReplacedLines;
 
+    /**
+     * Compiled regular expressions and date formats of the template
+     * by their source strings, reused for the values of a column
+     */
+    private final Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+
+    private final Map<String, DateTimeFormatter> formatters = new ConcurrentHashMap<>();
+
+    private final Map<String, DateTimeFormatter> fractionFormatters = new ConcurrentHashMap<>();
+
+    /**
+     * Last parsed date; dates repeat in consecutive lines
+     * and are parsed once per change
+     */
+    private volatile ParsedDate lastDate;
+
+    private record ParsedDate(DateTime data, String column, LocalDate date) {
+    }
+
     public int getCountOfReplacedLines() {
         return countOfReplacedLines;
     }
@@ -175,14 +197,23 @@ public abstract class Parser implements IGeoCoordinateParser {
     }
 
     protected LocalDateTime parseDateTime(String[] data) {
+        return parseDateTime(i -> data[i]);
+    }
+
+    /**
+     * Parses date and time of a row.
+     *
+     * @param data column values of the row by column index
+     */
+    protected LocalDateTime parseDateTime(IntFunction<String> data) {
 
         if (template.getDataMapping().getDateTime() != null
                 && template.getDataMapping().getDateTime().getIndex() != -1) {
             if (DateTime.Type.GPST.equals(template.getDataMapping().getDateTime().getType())) {
-                return gpsToUTC(data[template.getDataMapping().getDateTime().getIndex()]);
+                return gpsToUTC(data.apply(template.getDataMapping().getDateTime().getIndex()));
             } else {
                 return parseDateAndTime(template.getDataMapping().getDateTime(),
-                        data[template.getDataMapping().getDateTime().getIndex()]);
+                        data.apply(template.getDataMapping().getDateTime().getIndex()));
             }
         }
 
@@ -190,13 +221,14 @@ public abstract class Parser implements IGeoCoordinateParser {
                 && template.getDataMapping().getTime().getIndex() != -1
                 && template.getDataMapping().getDate() != null
                 && template.getDataMapping().getDate().getIndex() != null) {
-            var date = parseDate(template.getDataMapping().getDate(),
-                    data[(int) template.getDataMapping().getDate().getIndex()]);
-            var time = parseTime(template.getDataMapping().getTime(),
-                    data[(int) template.getDataMapping().getTime().getIndex()]);
+            var dateColumn = data.apply(template.getDataMapping().getDate().getIndex());
+            var timeColumn = data.apply(template.getDataMapping().getTime().getIndex());
+            var date = parseDate(template.getDataMapping().getDate(), dateColumn);
+            var time = parseTime(template.getDataMapping().getTime(), timeColumn);
             //var totalMS = calculateTotalMS(time);
             if (date == null || time == null) {
-                throw new CSVParsingException(null, "can't parse date/time, problem data: " + Arrays.toString(data));
+                throw new CSVParsingException(null, "can't parse date/time, problem data: "
+                        + Arrays.toString(new String[] {dateColumn, timeColumn}));
             }
             var dateTime = LocalDateTime.of(date, time); //date.plusNanos(totalMS);
             return dateTime;
@@ -206,7 +238,7 @@ public abstract class Parser implements IGeoCoordinateParser {
                 && template.getDataMapping().getTime().getIndex() != -1
                 && dateFromNameOfFile != null) {
             var time = parseTime(template.getDataMapping().getTime(),
-                    data[(int) template.getDataMapping().getTime().getIndex()]);
+                    data.apply(template.getDataMapping().getTime().getIndex()));
             //var totalMS = calculateTotalMS(time);
             var dateTime = LocalDateTime.of(dateFromNameOfFile, time);
             return dateTime;
@@ -214,8 +246,7 @@ public abstract class Parser implements IGeoCoordinateParser {
 
         if (template.getDataMapping().getTimestamp() != null
                 && template.getDataMapping().getTimestamp().getIndex() != -1) {
-            long timestamp = parseLong(getTemplate().getDataMapping().getTimestamp(), data[getTemplate().getDataMapping().getTimestamp().getIndex()]);
-            System.out.println("timestamp: " + timestamp);
+            long timestamp = parseLong(getTemplate().getDataMapping().getTimestamp(), data.apply(getTemplate().getDataMapping().getTimestamp().getIndex()));
             return LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault());
         }
 
@@ -243,8 +274,7 @@ public abstract class Parser implements IGeoCoordinateParser {
             var match = findByRegex(data.getRegex(), column);
             if (match.matches()) {
                 try {
-                    var format = data.getFormat().replaceAll("f", "S");
-                    result = LocalDateTime.parse(match.group(), DateTimeFormatter.ofPattern(format));
+                    result = LocalDateTime.parse(match.group(), getFractionFormatter(data.getFormat()));
                     return result;
                 } catch (DateTimeParseException e) {
                     return null;
@@ -253,8 +283,7 @@ public abstract class Parser implements IGeoCoordinateParser {
         }
 
         try {
-            var format = data.getFormat().replaceAll("f", "S");
-            result = LocalDateTime.parse(column, DateTimeFormatter.ofPattern(format));
+            result = LocalDateTime.parse(column, getFractionFormatter(data.getFormat()));
             return result;
         } catch (DateTimeParseException e) {
             return null;
@@ -265,13 +294,23 @@ public abstract class Parser implements IGeoCoordinateParser {
         if (column != null) {
             column = column.trim();
         }
-        LocalDate result;
+        ParsedDate last = lastDate;
+        if (last != null && last.data() == data && last.column().equals(column)) {
+            return last.date();
+        }
+        LocalDate result = parseDateValue(data, column);
+        if (result != null && column != null) {
+            lastDate = new ParsedDate(data, column, result);
+        }
+        return result;
+    }
+
+    private LocalDate parseDateValue(DateTime data, String column) {
         if (StringUtils.hasText(data.getRegex())) {
             var match = findByRegex(data.getRegex(), column);
             if (match.matches()) {
                 try {
-                    result = LocalDate.parse(match.group(), DateTimeFormatter.ofPattern(data.getFormat()));
-                    return result;
+                    return LocalDate.parse(match.group(), getFormatter(data.getFormat()));
                 } catch (DateTimeParseException e) {
                     return null;
                 }
@@ -279,8 +318,7 @@ public abstract class Parser implements IGeoCoordinateParser {
         }
 
         try {
-            result = LocalDate.parse(column, DateTimeFormatter.ofPattern(data.getFormat()));
-            return result;
+            return LocalDate.parse(column, getFormatter(data.getFormat()));
         } catch (DateTimeParseException e) {
             return null;
         }
@@ -295,8 +333,7 @@ public abstract class Parser implements IGeoCoordinateParser {
             var match = findByRegex(data.getRegex(), column);
             if (match.matches()) {
                 try {
-                    var format = data.getFormat().replaceAll("f", "S");
-                    result = LocalTime.parse(match.group(), DateTimeFormatter.ofPattern(format));
+                    result = LocalTime.parse(match.group(), getFractionFormatter(data.getFormat()));
                     return result;
                 } catch (DateTimeParseException e) {
                     return null;
@@ -305,8 +342,7 @@ public abstract class Parser implements IGeoCoordinateParser {
         }
 
         try {
-            var format = data.getFormat().replaceAll("f", "S");
-            result = LocalTime.parse(column, DateTimeFormatter.ofPattern(format));
+            result = LocalTime.parse(column, getFractionFormatter(data.getFormat()));
             return result;
         } catch (DateTimeParseException e) {
             return null;
@@ -320,11 +356,24 @@ public abstract class Parser implements IGeoCoordinateParser {
     */
 
     private Matcher findByRegex(String regex, String column) {
-        var r = Pattern.compile(regex);
+        var r = patterns.computeIfAbsent(regex, Pattern::compile);
         var m = r.matcher(column);
         return m;
     }
 
+    private DateTimeFormatter getFormatter(String format) {
+        return formatters.computeIfAbsent(format, DateTimeFormatter::ofPattern);
+    }
+
+    /**
+     * Returns formatter of a template format, where fraction
+     * of a second is denoted by 'f' instead of 'S'.
+     */
+    private DateTimeFormatter getFractionFormatter(String format) {
+        return fractionFormatters.computeIfAbsent(format,
+                f -> DateTimeFormatter.ofPattern(f.replace('f', 'S')));
+    }
+
     public Template getTemplate() {
         return template;
     }
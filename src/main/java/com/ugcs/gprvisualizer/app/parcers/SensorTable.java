@@ -0,0 +1,304 @@
+package com.ugcs.gprvisualizer.app.parcers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ugcs.gprvisualizer.utils.Check;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Columnar storage of the sensor values of a file. Values of a sensor
+ * are kept in a primitive array indexed by row, {@link GeoData} is
+ * a view of a table row.
+ * <p>
+ * Cell of the table is absent, null or holds a number. Numbers are
+ * stored as doubles with a state telling whether the value is an integer,
+ * so that values are read back with the type they were set with.
+ * Original values of a column are copied on the first change of a value
+ * in the column and are kept to detect and undo the changes; a value
+ * set to an absent cell becomes its original value.
+ * <p>
+ * Values of the different rows of a preallocated table could be loaded
+ * in parallel with {@link #put}; other changes are not thread-safe.
+ */
+public final class SensorTable {
+
+    // cell states
+    private static final byte ABSENT = 0;
+    private static final byte NULL = 1;
+    private static final byte DOUBLE = 2;
+    private static final byte INTEGER = 3;
+
+    private static final class Column {
+
+        private final @Nullable String semantic;
+
+        private final @Nullable String units;
+
+        private double[] values;
+
+        private byte[] states;
+
+        private double @Nullable [] originalValues;
+
+        private byte @Nullable [] originalStates;
+
+        private Column(@Nullable String semantic, @Nullable String units, int capacity) {
+            this.semantic = semantic;
+            this.units = units;
+            this.values = new double[capacity];
+            this.states = new byte[capacity];
+        }
+
+        private Column(Column column) {
+            this.semantic = column.semantic;
+            this.units = column.units;
+            this.values = column.values.clone();
+            this.states = column.states.clone();
+            this.originalValues = column.originalValues != null ? column.originalValues.clone() : null;
+            this.originalStates = column.originalStates != null ? column.originalStates.clone() : null;
+        }
+
+        private void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+            states = Arrays.copyOf(states, capacity);
+            if (originalValues != null) {
+                originalValues = Arrays.copyOf(originalValues, capacity);
+                originalStates = Arrays.copyOf(originalStates, capacity);
+            }
+        }
+    }
+
+    private final List<Column> columns = new ArrayList<>();
+
+    private final Map<String, Integer> columnIndices = new HashMap<>();
+
+    private int numRows;
+
+    private int capacity;
+
+    public SensorTable() {
+        this(0);
+    }
+
+    /**
+     * Creates a table of the given number of rows,
+     * all cells of the table are absent.
+     */
+    public SensorTable(int numRows) {
+        Check.condition(numRows >= 0, "Number of rows is negative");
+
+        this.numRows = numRows;
+        this.capacity = numRows;
+    }
+
+    private SensorTable(SensorTable table) {
+        for (Column column : table.columns) {
+            columns.add(new Column(column));
+        }
+        columnIndices.putAll(table.columnIndices);
+        numRows = table.numRows;
+        capacity = table.capacity;
+    }
+
+    /**
+     * Returns a copy of the table, independent of this table.
+     */
+    public SensorTable copy() {
+        return new SensorTable(this);
+    }
+
+    public int numRows() {
+        return numRows;
+    }
+
+    public int numColumns() {
+        return columns.size();
+    }
+
+    /**
+     * Appends a row having all cells absent.
+     *
+     * @return index of the row
+     */
+    public int addRow() {
+        if (numRows == capacity) {
+            capacity = Math.max(16, 2 * capacity);
+            for (Column column : columns) {
+                column.resize(capacity);
+            }
+        }
+        return numRows++;
+    }
+
+    /**
+     * Adds a column for the sensor semantic; when the table
+     * already has a column of the semantic, returns it.
+     *
+     * @return index of the column
+     */
+    public int addColumn(@Nullable String semantic, @Nullable String units) {
+        int index = getColumn(semantic);
+        if (index == -1) {
+            index = columns.size();
+            columns.add(new Column(semantic, units, capacity));
+            columnIndices.put(semantic, index);
+        }
+        return index;
+    }
+
+    /**
+     * Returns index of the column of the sensor semantic,
+     * -1 when the table has no such column.
+     */
+    public int getColumn(@Nullable String semantic) {
+        return columnIndices.getOrDefault(semantic, -1);
+    }
+
+    public @Nullable String getSemantic(int column) {
+        return getColumnData(column).semantic;
+    }
+
+    public @Nullable String getUnits(int column) {
+        return getColumnData(column).units;
+    }
+
+    private Column getColumnData(int column) {
+        Check.indexInBounds(column, columns.size());
+
+        return columns.get(column);
+    }
+
+    private Column getCell(int column, int row) {
+        Check.indexInBounds(row, numRows);
+
+        return getColumnData(column);
+    }
+
+    /**
+     * Tells whether the cell is present: holds a number or null.
+     */
+    public boolean isPresent(int column, int row) {
+        return getCell(column, row).states[row] != ABSENT;
+    }
+
+    /**
+     * Tells whether the cell holds a number.
+     */
+    public boolean hasValue(int column, int row) {
+        return getCell(column, row).states[row] >= DOUBLE;
+    }
+
+    /**
+     * Returns value of the cell as a double,
+     * NaN when the cell holds no number.
+     */
+    public double getDouble(int column, int row) {
+        Column data = getCell(column, row);
+        return data.states[row] >= DOUBLE ? data.values[row] : Double.NaN;
+    }
+
+    /**
+     * Returns value of the cell, null when the cell holds no number.
+     */
+    public @Nullable Number getNumber(int column, int row) {
+        Column data = getCell(column, row);
+        return toNumber(data.values[row], data.states[row]);
+    }
+
+    /**
+     * Returns original value of the cell, null when
+     * the cell had no number.
+     */
+    public @Nullable Number getOriginalNumber(int column, int row) {
+        Column data = getCell(column, row);
+        return data.originalValues != null
+                ? toNumber(data.originalValues[row], data.originalStates[row])
+                : toNumber(data.values[row], data.states[row]);
+    }
+
+    /**
+     * Tells whether the cell value differs from its original value.
+     */
+    public boolean isModified(int column, int row) {
+        Column data = getCell(column, row);
+        if (data.originalValues == null) {
+            return false;
+        }
+        byte state = data.states[row];
+        return state != data.originalStates[row]
+                || state >= DOUBLE && Double.doubleToLongBits(data.values[row])
+                        != Double.doubleToLongBits(data.originalValues[row]);
+    }
+
+    /**
+     * Loads value of the cell as its original value. Values of the
+     * different rows could be loaded concurrently; columns should
+     * not be changed while the values are loaded.
+     */
+    public void put(int column, int row, @Nullable Number value) {
+        Column data = getCell(column, row);
+        data.values[row] = toDouble(value);
+        data.states[row] = toState(value);
+        if (data.originalValues != null) {
+            data.originalValues[row] = data.values[row];
+            data.originalStates[row] = data.states[row];
+        }
+    }
+
+    /**
+     * Sets value of the cell; original values of the column
+     * are copied on the first change.
+     */
+    public void setValue(int column, int row, @Nullable Number value) {
+        Column data = getCell(column, row);
+        double v = toDouble(value);
+        byte state = toState(value);
+        if (data.states[row] == ABSENT) {
+            if (data.originalValues != null) {
+                data.originalValues[row] = v;
+                data.originalStates[row] = state;
+            }
+        } else if (data.originalValues == null) {
+            data.originalValues = data.values.clone();
+            data.originalStates = data.states.clone();
+        }
+        data.values[row] = v;
+        data.states[row] = state;
+    }
+
+    /**
+     * Restores original value of the cell.
+     */
+    public void undo(int column, int row) {
+        Column data = getCell(column, row);
+        if (data.originalValues != null) {
+            data.values[row] = data.originalValues[row];
+            data.states[row] = data.originalStates[row];
+        }
+    }
+
+    private static double toDouble(@Nullable Number value) {
+        return value != null ? value.doubleValue() : Double.NaN;
+    }
+
+    private static byte toState(@Nullable Number value) {
+        if (value == null) {
+            return NULL;
+        }
+        return value instanceof Integer || value instanceof Short || value instanceof Byte
+                ? INTEGER
+                : DOUBLE;
+    }
+
+    private static @Nullable Number toNumber(double value, byte state) {
+        return switch (state) {
+            case DOUBLE -> Double.valueOf(value);
+            case INTEGER -> Integer.valueOf((int) value);
+            default -> null;
+        };
+    }
+}
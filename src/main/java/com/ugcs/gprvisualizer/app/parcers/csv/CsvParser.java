@@ -7,14 +7,26 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.LineNumberReader;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.StreamSupport;
 
 import com.ugcs.gprvisualizer.app.parcers.*;
@@ -41,6 +53,9 @@ public class CsvParser extends Parser {
 
     private static final Logger log = LoggerFactory.getLogger(CsvParser.class);
 
+    // size of the file chunks parsed in parallel, in bytes
+    private static final int CHUNK_SIZE = 8 << 20;
+
     public CsvParser(Template template) {
             super(template);
         }
@@ -48,7 +63,7 @@ public class CsvParser extends Parser {
         @Override
         public List<GeoCoordinates> parse(String logPath) throws FileNotFoundException {
 
-            var coordinates = new ArrayList<GeoCoordinates>();
+            List<GeoCoordinates> coordinates;
 
             if (!new File(logPath).exists()) {
                 throw new FileNotFoundException(String.format("File %s does not exist", logPath));
@@ -62,15 +77,18 @@ public class CsvParser extends Parser {
                 parseDateFromNameOfFile(new File(logPath).getName());
             }
 
-            try (var reader = new BufferedReader(new FileReader(logPath))) {
+            var markSensorData = new SensorData() {{
+                setHeader(GeoData.Semantic.MARK.getName());
+            }};
+
+            int headerLines;
+            int lineNumber;
+
+            try (var reader = new LineNumberReader(new FileReader(logPath))) {
                 String line = skipLines(reader);
                 // tells if current line value is already in a skipped list
                 boolean lineSkipped = line != null;
 
-                var markSensorData = new SensorData() {{
-                    setHeader(GeoData.Semantic.MARK.getName());
-                }};
-
                 if (template.getFileFormat().isHasHeader()) {
                     // handle empty lines and comments before header
                     boolean eof = template.getSkipLinesTo() != null && line == null;
@@ -90,88 +108,289 @@ public class CsvParser extends Parser {
                 //format = new CultureInfo("en-US", false);
                 //format.NumberFormat.NumberDecimalSeparator = template.getFileFormat().getDecimalSeparator();
 
-                var lineNumber = skippedLines.isEmpty() ? 0 : skippedLines.toString().split(System.lineSeparator()).length;
+                headerLines = reader.getLineNumber();
+                lineNumber = skippedLines.isEmpty() ? 0 : skippedLines.toString().split(System.lineSeparator()).length;
+            } catch (Exception e) {
+                e.printStackTrace();
+                throw new CSVParsingException(new File(logPath), e.getMessage() + ", used template: " + template.getName());
+            }
 
-                var traceCount = 0;
+            // lines after the header are parsed in chunks in parallel
+            // and the chunks are joined in the file order
+            List<Chunk> chunks;
+            try (var channel = FileChannel.open(Path.of(logPath), StandardOpenOption.READ)) {
+                long start = LineChunks.skipLines(channel, headerLines);
+                List<LineChunks.Range> ranges = LineChunks.split(channel, start, CHUNK_SIZE);
+
+                List<Integer> lineCounts = joinAll(ranges.stream()
+                        .map(range -> supplyAsync(() -> LineChunks.countLines(channel, range)))
+                        .toList());
+                // sensor values of a line are stored in the table row
+                // of the line index after the header
+                int numLines = lineCounts.stream().mapToInt(Integer::intValue).sum();
+                var sensorTable = new SensorTable(numLines);
+                var columns = compileColumns(markSensorData, sensorTable);
+
+                List<CompletableFuture<Chunk>> futures = new ArrayList<>(ranges.size());
+                int firstRow = 0;
+                for (int i = 0; i < ranges.size(); i++) {
+                    var range = ranges.get(i);
+                    int firstLineNumber = lineNumber + firstRow;
+                    int chunkFirstRow = firstRow;
+                    futures.add(supplyAsync(() -> parseChunk(channel, range, firstLineNumber,
+                            sensorTable, chunkFirstRow, columns, markSensorData)));
+                    firstRow += lineCounts.get(i);
+                }
+                chunks = joinAll(futures);
+            } catch (Exception e) {
+                e.printStackTrace();
+                throw new CSVParsingException(new File(logPath), e.getMessage() + ", used template: " + template.getName());
+            }
 
-                while ((line = reader.readLine()) != null) {
+            // trace numbers by default are the numbers of the rows in the file
+            int traceCount = 0;
+            for (Chunk chunk : chunks) {
+                if (traceCount > 0) {
+                    var rows = chunk.rows();
+                    var defaultTraceNumbers = chunk.defaultTraceNumbers();
+                    for (int i = defaultTraceNumbers.nextSetBit(0); i >= 0; i = defaultTraceNumbers.nextSetBit(i + 1)) {
+                        rows.get(i).setTraceNumber(traceCount + i);
+                    }
+                }
+                traceCount += chunk.rows().size();
+            }
 
-                    lineNumber++;
+            List<List<GeoCoordinates>> runs = chunks.stream()
+                    .map(Chunk::rows)
+                    .toList();
 
-                    if (isBlankOrCommented(line)) {
-                        log.warn("Row #" + line + " was commented or empty: " + line);
-                        continue;
-                    }
+            // timestamps could be in wrong order in the file
+            if (template.getDataMapping().getTimestamp() != null && template.getDataMapping().getTimestamp().getIndex() != -1) {
+                Comparator<GeoCoordinates> byDateTime = (o1, o2) -> o1.getDateTime().compareTo(o2.getDateTime());
+                runs.parallelStream().forEach(run -> run.sort(byDateTime));
+                coordinates = mergeSorted(runs, byDateTime);
+            } else {
+                coordinates = new ArrayList<>(traceCount);
+                runs.forEach(coordinates::addAll);
+            }
 
-                    var data = line.split(template.getFileFormat().getSeparator());
-                    if (data.length < 2) {
-                        log.warn("Row #" + lineNumber + " is not correct: " + line);
-                        continue;
-                    }
+            return coordinates;
+        }
 
-                    if (data.length <= template.getDataMapping().getLatitude().getIndex()) {
-                        log.warn("Row #" + lineNumber + " is not correct: " + line);
-                        continue;
-                    }
-                    var lat = parseDouble(template.getDataMapping().getLatitude(), data[template.getDataMapping().getLatitude().getIndex()]);
+        /**
+         * Rows parsed from a chunk of the file. Trace numbers
+         * of the rows having no trace number in the file are set
+         * to the row indexes within the chunk.
+         */
+        private record Chunk(List<GeoCoordinates> rows, BitSet defaultTraceNumbers) {
+        }
 
-                    if (data.length <= template.getDataMapping().getLongitude().getIndex()) {
-                        log.warn("Row #" + lineNumber + " is not correct: " + line);
-                        continue;
-                    }
-                    var lon = parseDouble(template.getDataMapping().getLongitude(), data[template.getDataMapping().getLongitude().getIndex()]);
+        private Chunk parseChunk(FileChannel channel, LineChunks.Range range, int firstLineNumber,
+                SensorTable sensorTable, int firstRow, Columns columns, SensorData markSensorData) throws IOException {
+            var rows = new ArrayList<GeoCoordinates>();
+            var defaultTraceNumbers = new BitSet();
+
+            var fields = new LineSplitter(template.getFileFormat().getSeparator());
+
+            List<String> lines = LineChunks.readLines(channel, range, Charset.defaultCharset());
+            for (int k = 0; k < lines.size(); k++) {
+                String line = lines.get(k);
+                int lineNumber = firstLineNumber + k + 1;
+                int row = firstRow + k;
+
+                if (isBlankOrCommented(line)) {
+                    log.warn("Row #" + line + " was commented or empty: " + line);
+                    continue;
+                }
+
+                fields.split(line);
+                if (fields.size() < 2) {
+                    log.warn("Row #" + lineNumber + " is not correct: " + line);
+                    continue;
+                }
+
+                if (fields.size() <= columns.latitude()) {
+                    log.warn("Row #" + lineNumber + " is not correct: " + line);
+                    continue;
+                }
+                var lat = parseDouble(template.getDataMapping().getLatitude(), fields.get(columns.latitude()));
+
+                if (fields.size() <= columns.longitude()) {
+                    log.warn("Row #" + lineNumber + " is not correct: " + line);
+                    continue;
+                }
+                var lon = parseDouble(template.getDataMapping().getLongitude(), fields.get(columns.longitude()));
+
+                if (lat == null || lon == null) {
+                    log.warn("Row #" + lineNumber + " is not correct, lat or lon was not parsed: " + line);
+                    continue;
+                }
+
+                Double alt = null;
+                if (columns.altitude() != -1 && columns.altitude() < fields.size()) {
+                    String altitude = fields.get(columns.altitude());
+                    alt = StringUtils.hasText(altitude)
+                            ? parseDouble(template.getDataMapping().getAltitude(), altitude)
+                            : null;
+                }
+
+                Integer traceNumber = null;
+                if (columns.traceNumber() != -1 && columns.traceNumber() < fields.size()) {
+                    traceNumber = parseInt(template.getDataMapping().getTraceNumber(), fields.get(columns.traceNumber()));
+                }
+                if (traceNumber == null) {
+                    traceNumber = rows.size();
+                    defaultTraceNumbers.set(rows.size());
+                }
 
-                    if (lat == null || lon == null) {
-                        log.warn("Row #" + lineNumber + " is not correct, lat or lon was not parsed: " + line);
+                for (int i = 0; i < columns.sensors().length; i++) {
+                    int column = columns.sensorColumns()[i];
+                    if (column == -1) {
                         continue;
-                    } 
-
-                    var alt = template.getDataMapping().getAltitude() != null 
-                              && template.getDataMapping().getAltitude().getIndex() != null
-                              && template.getDataMapping().getAltitude().getIndex() != -1
-                              && template.getDataMapping().getAltitude().getIndex() < data.length 
-                              && StringUtils.hasText(data[template.getDataMapping().getAltitude().getIndex()]) 
-                        ? parseDouble(template.getDataMapping().getAltitude(), data[template.getDataMapping().getAltitude().getIndex()]) 
-                        : null;
-
-                    Integer traceNumber = null;   
-                    if (template.getDataMapping().getTraceNumber() != null 
-                        && template.getDataMapping().getTraceNumber().getIndex() != -1
-                        && template.getDataMapping().getTraceNumber().getIndex() < data.length) {
-                        traceNumber = parseInt(template.getDataMapping().getTraceNumber(), data[template.getDataMapping().getTraceNumber().getIndex()]);
-                    }
-                    traceNumber = traceNumber != null ? traceNumber : traceCount;
-
-                    List<SensorValue> sensorValues = new ArrayList<>();
-                    if (template.getDataMapping().getDataValues() != null) {
-                        for (SensorData sensor : template.getDataMapping().getDataValues()) {
-                            String sensorData = (sensor.getIndex() != null && sensor.getIndex() != -1 && sensor.getIndex() < data.length) ? data[sensor.getIndex()] : null;
-                            sensorValues.add(new SensorValue(sensor.getSemantic(), sensor.getUnits(), parseNumber(sensor, sensorData)));
-                        }    
                     }
+                    SensorData sensor = columns.sensors()[i];
+                    int index = columns.sensorIndices()[i];
+                    Number value = index != -1 && index < fields.size()
+                            ? parseNumber(sensor, fields, index)
+                            : null;
+                    sensorTable.put(column, row, value);
+                }
 
-                    traceCount++;
+                var date = parseDateTime(fields::get);
 
-                    var date = parseDateTime(data);
+                boolean marked = false;
+                if (columns.mark() != -1 && columns.mark() < fields.size()) {
+                    marked = parseInt(markSensorData, fields.get(columns.mark())) instanceof Integer i && i == 1;
+                }
 
-                    boolean marked = false;
-                    if (markSensorData.getIndex() != null && markSensorData.getIndex() != -1 && markSensorData.getIndex() < data.length) {
-                        marked = parseInt(markSensorData, data[markSensorData.getIndex()]) instanceof Integer i && i == 1;
-                    }
+                rows.add(new GeoData(marked, lineNumber, sensorTable, row, new GeoCoordinates(date, lat, lon, alt, traceNumber)));
+            }
+            return new Chunk(rows, defaultTraceNumbers);
+        }
 
-                    coordinates.add(new GeoData(marked, lineNumber, sensorValues, new GeoCoordinates(date, lat, lon, alt, traceNumber)));
+        private interface IOSupplier<T> {
+
+            T get() throws IOException;
+        }
+
+        private static <T> CompletableFuture<T> supplyAsync(IOSupplier<T> supplier) {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return supplier.get();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
-            } catch (Exception e) {
-                e.printStackTrace();
-                throw new CSVParsingException(new File(logPath), e.getMessage() + ", used template: " + template.getName());
+            }, ForkJoinPool.commonPool());
+        }
+
+        /**
+         * Waits for the results of the tasks in order and rethrows
+         * the exception of the first failed task.
+         */
+        private static <T> List<T> joinAll(List<CompletableFuture<T>> futures) throws IOException {
+            List<T> results = new ArrayList<>(futures.size());
+            try {
+                for (CompletableFuture<T> future : futures) {
+                    results.add(future.join());
+                }
+            } catch (CompletionException e) {
+                futures.forEach(future -> future.cancel(false));
+                if (e.getCause() instanceof UncheckedIOException ioException) {
+                    throw ioException.getCause();
+                }
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw e;
             }
+            return results;
+        }
 
-            // timestamps could be in wrong order in the file
-            if (template.getDataMapping().getTimestamp() != null && template.getDataMapping().getTimestamp().getIndex() != -1) {
-                coordinates.sort((o1, o2) -> o1.getDateTime().compareTo(o2.getDateTime()));
+        /**
+         * Merges sorted runs pairwise in parallel. Merge is stable:
+         * of the equal elements those of the preceding runs go first.
+         */
+        private static <T> List<T> mergeSorted(List<List<T>> runs, Comparator<? super T> comparator) {
+            while (runs.size() > 1) {
+                List<List<T>> merging = runs;
+                runs = IntStream.range(0, (merging.size() + 1) / 2)
+                        .parallel()
+                        .mapToObj(i -> 2 * i + 1 < merging.size()
+                                ? merge(merging.get(2 * i), merging.get(2 * i + 1), comparator)
+                                : merging.get(2 * i))
+                        .toList();
             }
+            return runs.isEmpty() ? new ArrayList<>() : runs.getFirst();
+        }
 
-            return coordinates;
+        private static <T> List<T> merge(List<T> a, List<T> b, Comparator<? super T> comparator) {
+            List<T> merged = new ArrayList<>(a.size() + b.size());
+            int i = 0;
+            int j = 0;
+            while (i < a.size() && j < b.size()) {
+                if (comparator.compare(b.get(j), a.get(i)) < 0) {
+                    merged.add(b.get(j++));
+                } else {
+                    merged.add(a.get(i++));
+                }
+            }
+            merged.addAll(a.subList(i, a.size()));
+            merged.addAll(b.subList(j, b.size()));
+            return merged;
+        }
+
+        /**
+         * Column indexes of the template resolved for a file,
+         * -1 when a column is not mapped. Sensors are stored
+         * in the sensor table columns; of the sensors having
+         * the same semantic only the first one is stored.
+         */
+        private record Columns(int latitude, int longitude, int altitude, int traceNumber, int mark,
+                SensorData[] sensors, int[] sensorIndices, int[] sensorColumns) {
+        }
+
+        private Columns compileColumns(SensorData markSensorData, SensorTable sensorTable) {
+            var mapping = template.getDataMapping();
+            var sensors = mapping.getDataValues() != null
+                    ? mapping.getDataValues().toArray(new SensorData[0])
+                    : new SensorData[0];
+            int[] sensorIndices = new int[sensors.length];
+            int[] sensorColumns = new int[sensors.length];
+            for (int i = 0; i < sensors.length; i++) {
+                sensorIndices[i] = getIndex(sensors[i]);
+                sensorColumns[i] = sensorTable.getColumn(sensors[i].getSemantic()) == -1
+                        ? sensorTable.addColumn(sensors[i].getSemantic(), sensors[i].getUnits())
+                        : -1;
+            }
+            return new Columns(
+                    getIndex(mapping.getLatitude()),
+                    getIndex(mapping.getLongitude()),
+                    getIndex(mapping.getAltitude()),
+                    getIndex(mapping.getTraceNumber()),
+                    getIndex(markSensorData),
+                    sensors, sensorIndices, sensorColumns);
+        }
+
+        private static int getIndex(BaseData data) {
+            return data != null && data.getIndex() != null ? data.getIndex() : -1;
+        }
+
+        /**
+         * Parses number in a field as {@link #parseNumber(BaseData, String)}
+         * does, integers without regex are parsed in place.
+         */
+        private Number parseNumber(BaseData data, LineSplitter fields, int index) {
+            if (StringUtils.hasText(data.getRegex())) {
+                return parseNumber(data, fields.get(index));
+            }
+            if (fields.indexOf(index, template.getFileFormat().getDecimalSeparator()) > 0) {
+                return parseDouble(data, fields.get(index));
+            }
+            try {
+                return fields.parseInt(index);
+            } catch (NumberFormatException e) {
+                return null;
+            }
         }
 
         protected void parseDateFromNameOfFile(String logName) {
@@ -0,0 +1,187 @@
+package com.ugcs.gprvisualizer.app.parcers.csv;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ugcs.gprvisualizer.utils.Check;
+
+/**
+ * Splits a text file into byte ranges aligned to the line starts,
+ * so that the lines of a large file can be read in parallel.
+ * Ranges are read independently with positional reads, lines are
+ * terminated as in {@link java.io.BufferedReader#readLine()}: by a line
+ * feed, a carriage return or a carriage return followed by a line feed.
+ * <p>
+ * Line terminators are found in bytes, so the charset of the file
+ * must encode them as single bytes, as ASCII-compatible charsets do.
+ */
+final class LineChunks {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private LineChunks() {
+    }
+
+    /**
+     * Byte range of the file, {@code [start, end)}.
+     */
+    record Range(long start, long end) {
+
+        long size() {
+            return end - start;
+        }
+    }
+
+    /**
+     * Returns position in the file after the first {@code n} lines,
+     * or the file size when the file has fewer lines.
+     */
+    static long skipLines(FileChannel channel, int n) throws IOException {
+        Check.notNull(channel);
+        Check.condition(n >= 0, "Number of lines is negative");
+
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long position = 0;
+        int lines = 0;
+        boolean afterCr = false;
+        int read;
+        while ((read = channel.read(buffer.clear(), position)) > 0) {
+            for (int i = 0; i < read; i++) {
+                byte b = buffer.get(i);
+                if (afterCr) {
+                    afterCr = false;
+                    if (b == '\n') {
+                        // end of the \r\n terminator
+                        continue;
+                    }
+                }
+                if (lines == n) {
+                    return position + i;
+                }
+                if (b == '\n') {
+                    lines++;
+                } else if (b == '\r') {
+                    lines++;
+                    afterCr = true;
+                }
+            }
+            position += read;
+        }
+        return position;
+    }
+
+    /**
+     * Splits the file from the start position to the end into ranges
+     * of about the chunk size. Every range except the last one ends
+     * with a line feed.
+     */
+    static List<Range> split(FileChannel channel, long start, int chunkSize) throws IOException {
+        Check.notNull(channel);
+        Check.condition(chunkSize > 0, "Chunk size should be positive");
+
+        long size = channel.size();
+        List<Range> ranges = new ArrayList<>();
+        long from = start;
+        while (from < size) {
+            long to = size - from > chunkSize
+                    ? nextLine(channel, from + chunkSize)
+                    : size;
+            ranges.add(new Range(from, to));
+            from = to;
+        }
+        return ranges;
+    }
+
+    // position after the first line feed at or after the position
+    private static long nextLine(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        int read;
+        while ((read = channel.read(buffer.clear(), position)) > 0) {
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return position;
+    }
+
+    /**
+     * Counts lines in the range; a line without a terminator
+     * at the end of the range is counted.
+     */
+    static int countLines(FileChannel channel, Range range) throws IOException {
+        ByteBuffer buffer = read(channel, range);
+        int n = buffer.limit();
+        int lines = 0;
+        boolean afterCr = false;
+        for (int i = 0; i < n; i++) {
+            byte b = buffer.get(i);
+            if (b == '\n') {
+                if (!afterCr) {
+                    lines++;
+                }
+                afterCr = false;
+            } else if (b == '\r') {
+                lines++;
+                afterCr = true;
+            } else {
+                afterCr = false;
+            }
+        }
+        if (n > 0) {
+            byte last = buffer.get(n - 1);
+            if (last != '\n' && last != '\r') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Reads lines of the range, without terminators.
+     */
+    static List<String> readLines(FileChannel channel, Range range, Charset charset) throws IOException {
+        Check.notNull(charset);
+
+        String text = charset.decode(read(channel, range)).toString();
+        List<String> lines = new ArrayList<>();
+        int n = text.length();
+        int start = 0;
+        for (int i = 0; i < n; i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r') {
+                lines.add(text.substring(start, i));
+                if (c == '\r' && i + 1 < n && text.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                start = i + 1;
+            }
+        }
+        if (start < n) {
+            lines.add(text.substring(start));
+        }
+        return lines;
+    }
+
+    // file is not mapped: a mapping keeps the file locked on Windows
+    // until the buffer is collected, so it could not be replaced on save
+    private static ByteBuffer read(FileChannel channel, Range range) throws IOException {
+        Check.notNull(channel);
+        Check.notNull(range);
+
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(range.size()));
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, range.start() + buffer.position());
+            if (read < 0) {
+                break;
+            }
+        }
+        return buffer.flip();
+    }
+}
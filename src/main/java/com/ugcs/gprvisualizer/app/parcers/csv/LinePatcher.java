@@ -0,0 +1,167 @@
+package com.ugcs.gprvisualizer.app.parcers.csv;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.ugcs.gprvisualizer.utils.Check;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Writes lines with some of the fields replaced. Fields to replace are
+ * set before writing a line; the line is scanned for separators once
+ * and written by segments, only the replaced fields are new. A line
+ * having fewer fields than a replaced position is padded with empty
+ * fields. Lines without replacements are written as is.
+ * <p>
+ * Separator that is a regular expression is matched as such, padding
+ * fields are then separated by the separator string.
+ * <p>
+ * Patcher is reused for the lines of a file and is not thread-safe.
+ */
+public final class LinePatcher {
+
+    // characters having special meaning in a regular expression
+    private static final String REGEX_META_CHARS = ".$|()[{^?*+\\";
+
+    private final String separator;
+
+    // separator that is a regular expression
+    @Nullable
+    private final Pattern pattern;
+
+    // replacements of the next line, in order of positions
+    private int[] positions = new int[16];
+    private String[] values = new String[16];
+
+    private int size;
+
+    // bounds of the separators in the line
+    private int[] separatorStarts = new int[32];
+    private int[] separatorEnds = new int[32];
+
+    private int numSeparators;
+
+    public LinePatcher(String separator) {
+        Check.notEmpty(separator);
+
+        this.separator = separator;
+        this.pattern = separator.length() == 1 && REGEX_META_CHARS.indexOf(separator.charAt(0)) == -1
+                ? null
+                : Pattern.compile(separator);
+    }
+
+    /**
+     * Replaces field at the position in the next written line;
+     * when the position is set twice, the last value is written.
+     * Negative positions are ignored.
+     *
+     * @param value new value of the field, null for an empty field
+     */
+    public void set(int position, @Nullable String value) {
+        if (position < 0) {
+            return;
+        }
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, 2 * size);
+            values = Arrays.copyOf(values, 2 * size);
+        }
+        // insert keeping positions ordered, after the equal ones
+        int i = size;
+        while (i > 0 && positions[i - 1] > position) {
+            positions[i] = positions[i - 1];
+            values[i] = values[i - 1];
+            i--;
+        }
+        positions[i] = position;
+        values[i] = value != null ? value : "";
+        size++;
+    }
+
+    /**
+     * Writes the line with the fields set since the last write
+     * replaced, without a line terminator.
+     */
+    public void write(String line, Writer writer) throws IOException {
+        Check.notNull(line);
+        Check.notNull(writer);
+
+        if (size == 0) {
+            writer.write(line);
+            return;
+        }
+        try {
+            // separators up to the end of the last replaced field
+            scan(line, positions[size - 1] + 1);
+            writeFields(line, writer);
+        } finally {
+            Arrays.fill(values, 0, size, null);
+            size = 0;
+        }
+    }
+
+    // finds up to n first separators of the line
+    private void scan(String line, int n) {
+        numSeparators = 0;
+        if (pattern == null) {
+            char c = separator.charAt(0);
+            int end;
+            int start = 0;
+            while (numSeparators < n && (end = line.indexOf(c, start)) != -1) {
+                addSeparator(end, end + 1);
+                start = end + 1;
+            }
+        } else {
+            Matcher matcher = pattern.matcher(line);
+            while (numSeparators < n && matcher.find()) {
+                // as in String.split, no leading empty field
+                // for a zero-width match at the beginning
+                if (matcher.end() == 0) {
+                    continue;
+                }
+                addSeparator(matcher.start(), matcher.end());
+            }
+        }
+    }
+
+    private void addSeparator(int start, int end) {
+        if (numSeparators == separatorStarts.length) {
+            separatorStarts = Arrays.copyOf(separatorStarts, 2 * numSeparators);
+            separatorEnds = Arrays.copyOf(separatorEnds, 2 * numSeparators);
+        }
+        separatorStarts[numSeparators] = start;
+        separatorEnds[numSeparators] = end;
+        numSeparators++;
+    }
+
+    private void writeFields(String line, Writer writer) throws IOException {
+        int length = line.length();
+        // number of fields in the line written so far
+        int numFields = numSeparators + 1;
+        // end of the part of the line written
+        int written = 0;
+        for (int i = 0; i < size; i++) {
+            int position = positions[i];
+            if (i + 1 < size && positions[i + 1] == position) {
+                // replaced again
+                continue;
+            }
+            if (position < numFields) {
+                int start = position > 0 ? separatorEnds[position - 1] : 0;
+                writer.write(line, written, start - written);
+                written = position < numSeparators ? separatorStarts[position] : length;
+            } else {
+                // line has fewer fields, continue with empty ones
+                writer.write(line, written, length - written);
+                written = length;
+                for (; numFields <= position; numFields++) {
+                    writer.write(separator);
+                }
+            }
+            writer.write(values[i]);
+        }
+        writer.write(line, written, length - written);
+    }
+}
@@ -0,0 +1,134 @@
+package com.ugcs.gprvisualizer.app.parcers.csv;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+import com.ugcs.gprvisualizer.utils.Check;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Splits lines into fields by a separator character without regular
+ * expressions and without copying: split only records bounds of the
+ * fields in the line, field strings are created on request and integer
+ * fields are parsed in place. Result is the same as of
+ * {@link String#split(String)}: trailing empty fields are removed,
+ * and a separator that is a regular expression is split as such.
+ * <p>
+ * Splitter is reused for the lines of a file and is not thread-safe.
+ */
+final class LineSplitter {
+
+    // characters having special meaning in a regular expression
+    private static final String REGEX_META_CHARS = ".$|()[{^?*+\\";
+
+    private final char separator;
+
+    // separator that is a regular expression
+    @Nullable
+    private final Pattern pattern;
+
+    private String line = "";
+
+    // fields of the last line split by the pattern
+    private String[] fields = new String[0];
+
+    // bounds of the fields in the line
+    private int[] starts = new int[32];
+    private int[] ends = new int[32];
+
+    private int size;
+
+    LineSplitter(String separator) {
+        Check.notEmpty(separator);
+
+        if (separator.length() == 1 && REGEX_META_CHARS.indexOf(separator.charAt(0)) == -1) {
+            this.separator = separator.charAt(0);
+            this.pattern = null;
+        } else {
+            this.separator = 0;
+            this.pattern = Pattern.compile(separator);
+        }
+    }
+
+    void split(String line) {
+        Check.notNull(line);
+
+        this.line = line;
+        if (pattern != null) {
+            fields = pattern.split(line);
+            size = fields.length;
+            return;
+        }
+
+        int n = 0;
+        int start = 0;
+        int end;
+        while ((end = line.indexOf(separator, start)) != -1) {
+            add(n++, start, end);
+            start = end + 1;
+        }
+        if (n == 0) {
+            // no separators, the line is a single field
+            add(0, 0, line.length());
+            size = 1;
+            return;
+        }
+        add(n++, start, line.length());
+        while (n > 0 && starts[n - 1] == ends[n - 1]) {
+            n--;
+        }
+        size = n;
+    }
+
+    private void add(int i, int start, int end) {
+        if (i == starts.length) {
+            starts = Arrays.copyOf(starts, 2 * i);
+            ends = Arrays.copyOf(ends, 2 * i);
+        }
+        starts[i] = start;
+        ends[i] = end;
+    }
+
+    int size() {
+        return size;
+    }
+
+    String get(int i) {
+        Check.indexInBounds(i, size);
+
+        return pattern != null
+                ? fields[i]
+                : line.substring(starts[i], ends[i]);
+    }
+
+    /**
+     * Returns position of the string within the field or -1
+     * when the field does not contain it.
+     */
+    int indexOf(int i, String str) {
+        Check.indexInBounds(i, size);
+
+        if (pattern != null) {
+            return fields[i].indexOf(str);
+        }
+        for (int k = starts[i]; k <= ends[i] - str.length(); k++) {
+            if (line.startsWith(str, k)) {
+                return k - starts[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses field as a decimal integer as {@link Integer#parseInt(String)}.
+     *
+     * @throws NumberFormatException when the field is not an integer
+     */
+    int parseInt(int i) {
+        Check.indexInBounds(i, size);
+
+        return pattern != null
+                ? Integer.parseInt(fields[i])
+                : Integer.parseInt(line, starts[i], ends[i], 10);
+    }
+}
@@ -13,7 +13,7 @@ import java.util.*;
 
 import com.ugcs.gprvisualizer.app.parcers.GeoCoordinates;
 import com.ugcs.gprvisualizer.app.parcers.GeoData;
-import com.ugcs.gprvisualizer.app.parcers.SensorValue;
+import com.ugcs.gprvisualizer.app.parcers.SensorTable;
 import com.ugcs.gprvisualizer.app.yaml.Template;
 import com.ugcs.gprvisualizer.app.yaml.data.Date.Source;
 import com.ugcs.gprvisualizer.app.yaml.data.DateTime;
@@ -65,6 +65,20 @@ public class MagDroneCsvParser extends CsvParser {
 
             int lineNumber = skippedLines.isEmpty() ? 0 : skippedLines.toString().split(System.lineSeparator()).length + 1;
 
+            // sensor values of the file, first of the sensors
+            // having the same semantic is stored
+            SensorTable sensorTable = new SensorTable();
+            List<SensorData> sensors = template.getDataMapping().getDataValues() != null
+                    ? template.getDataMapping().getDataValues()
+                    : List.of();
+            int[] sensorColumns = new int[sensors.size()];
+            for (int i = 0; i < sensors.size(); i++) {
+                SensorData sensor = sensors.get(i);
+                sensorColumns[i] = sensorTable.getColumn(sensor.getSemantic()) == -1
+                        ? sensorTable.addColumn(sensor.getSemantic(), sensor.getUnits())
+                        : -1;
+            }
+
             while ((line = reader.readLine()) != null) {
                 
                 lineNumber++;
@@ -82,18 +96,19 @@ public class MagDroneCsvParser extends CsvParser {
                 int traceNumber = getTemplate().getDataMapping().getTraceNumber() != null && getTemplate().getDataMapping().getTraceNumber().getIndex() != -1 ?
                         parseInt(getTemplate().getDataMapping().getTraceNumber(), data[getTemplate().getDataMapping().getTraceNumber().getIndex()]) : traceCount;
             
-                List<SensorValue> sensorValues = new ArrayList<>();
-                if (template.getDataMapping().getDataValues() != null) {
-                    for (SensorData sensor : template.getDataMapping().getDataValues()) {
+                if (getTemplate().getDataMapping().getTime() == null) {
+                    int row = sensorTable.addRow();
+                    for (int i = 0; i < sensors.size(); i++) {
+                        SensorData sensor = sensors.get(i);
                         String sensorData = (sensor.getIndex() != null && sensor.getIndex() != -1 && sensor.getIndex() < data.length) ? data[sensor.getIndex()] : null;
-                        sensorValues.add(new SensorValue(sensor.getSemantic(), sensor.getUnits(), parseNumber(sensor, sensorData)));
-                    }    
-                }
+                        if (sensorColumns[i] != -1) {
+                            sensorTable.put(sensorColumns[i], row, parseNumber(sensor, sensorData));
+                        }
+                    }
 
-                if (getTemplate().getDataMapping().getTime() == null) {
                     Instant instant = Instant.ofEpochMilli(timestamp);
                     LocalDateTime date = LocalDateTime.ofInstant(instant, ZoneId.of("UTC"));
-                    coordinates.add(new GeoData(false, lineNumber, sensorValues, new GeoCoordinates(date, lat, lon, alt, traceNumber)));
+                    coordinates.add(new GeoData(false, lineNumber, sensorTable, row, new GeoCoordinates(date, lat, lon, alt, traceNumber)));
                 }
                 
                 SimpleDateFormat sdf = new SimpleDateFormat("HH:mm:ss");
@@ -2,11 +2,14 @@ package com.ugcs.gprvisualizer.app.undo;
 
 import com.github.thecoldwine.sigrun.common.ext.CsvFile;
 import com.ugcs.gprvisualizer.app.parcers.GeoData;
+import com.ugcs.gprvisualizer.app.parcers.SensorTable;
 import com.ugcs.gprvisualizer.gpr.Model;
 import com.ugcs.gprvisualizer.utils.Nulls;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class CsvSnapshot extends FileSnapshot<CsvFile> {
 
@@ -21,8 +24,12 @@ public class CsvSnapshot extends FileSnapshot<CsvFile> {
     private static List<GeoData> copyValues(CsvFile file) {
         List<GeoData> values = Nulls.toEmpty(file.getGeoData());
         List<GeoData> snapshot = new ArrayList<>(values.size());
+        // sensor tables are copied as a whole, values are
+        // views of the copied tables
+        Map<SensorTable, SensorTable> tables = new IdentityHashMap<>();
         for (GeoData value : values) {
-            snapshot.add(new GeoData(value));
+            SensorTable table = tables.computeIfAbsent(value.getSensorTable(), SensorTable::copy);
+            snapshot.add(new GeoData(value, table));
         }
         return snapshot;
     }
@@ -2,6 +2,7 @@ package com.ugcs.gprvisualizer.app.yaml;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -10,13 +11,16 @@ import java.nio.file.StandardWatchEventKinds;
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import com.ugcs.gprvisualizer.app.StatusBar;
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
@@ -55,6 +59,17 @@ public class FileTemplates implements InitializingBean {
     @Value( "${app.filetemplates.linethreshold:50}")
     private int lineThreshold;
 
+    @Value( "${app.filetemplates.bytethreshold:65536}")
+    private int byteThreshold;
+
+    /**
+     * Templates found for the files, by file path
+     */
+    private final Map<Path, DetectedTemplate> detectedTemplates = new ConcurrentHashMap<>();
+
+    private record DetectedTemplate(FileTime lastModified, long size, @Nullable Template template) {
+    }
+
     public FileTemplates(Status status) {
         this.status = status;
     }
@@ -119,6 +134,8 @@ public class FileTemplates implements InitializingBean {
                     try {
                         Template template = yaml.load(inputStream);
                         if (template.isTemplateValid()) {
+                            // compile once for the detection of file templates
+                            template.getMatchPattern();
                             templates.add(template);
                             logger.debug("Valid template, data: " + template);
                         } else {
@@ -188,6 +205,7 @@ public class FileTemplates implements InitializingBean {
                     }
                     templates.clear();
                     loadTemplates(yaml, templatesPath, templates);
+                    detectedTemplates.clear();
 
                     // Show status message with the number of reloaded templates
                     if (!templates.isEmpty()) {
@@ -216,19 +234,57 @@ public class FileTemplates implements InitializingBean {
             return ot.isPresent() ? ot.get() : null;
         }
 
-        String firstNonEmptyLines = "";
-        try (Stream<String> lines = Files.lines(Paths.get(fileName))) {
-            List<String> firstTenLines = lines.limit(lineThreshold).collect(Collectors.toList());
-            firstNonEmptyLines = String.join(System.lineSeparator(), firstTenLines);
-            logger.debug(firstNonEmptyLines);
+        Path path = Paths.get(fileName);
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            logger.error("Error reading file: " + e.getMessage());
+            return matchTemplate(templates, "");
+        }
+
+        // detected templates are kept for the loaded templates only
+        if (templates != this.templates) {
+            return matchTemplate(templates, readHeader(path));
+        }
+        DetectedTemplate detected = detectedTemplates.get(path);
+        if (detected != null
+                && detected.lastModified().equals(attributes.lastModifiedTime())
+                && detected.size() == attributes.size()) {
+            return detected.template();
+        }
+        Template template = matchTemplate(templates, readHeader(path));
+        detectedTemplates.put(path, new DetectedTemplate(
+                attributes.lastModifiedTime(), attributes.size(), template));
+        return template;
+    }
+
+    /**
+     * Reads first lines of the file, up to the line threshold
+     * and not longer than the byte threshold.
+     */
+    private String readHeader(Path path) {
+        byte[] prefix;
+        try (InputStream in = Files.newInputStream(path)) {
+            prefix = in.readNBytes(byteThreshold);
         } catch (IOException e) {
             logger.error("Error reading file: " + e.getMessage());
+            return "";
         }
+        // prefix could end within a character, that is decoded
+        // to the replacement character
+        String header = new String(prefix, StandardCharsets.UTF_8).lines()
+                .limit(lineThreshold)
+                .collect(Collectors.joining(System.lineSeparator()));
+        logger.debug(header);
+        return header;
+    }
 
+    @Nullable
+    private Template matchTemplate(List<Template> templates, String header) {
         for (var t : templates) {
             try {
-                var regex = Pattern.compile(t.getMatchRegex(), Pattern.MULTILINE | Pattern.DOTALL);
-                if (regex.matcher(firstNonEmptyLines).find()) {
+                if (t.getMatchPattern().matcher(header).find()) {
                     return t;
                 }
             } catch (Exception e) {
@@ -17,6 +17,7 @@ public class Template {
     private String code;
     private FileType fileType = FileType.Unknown;
     private String matchRegex;
+    private Pattern matchPattern;
     private FileFormat fileFormat;
     private String dataValidation;
     private DataMapping dataMapping;
@@ -133,6 +134,23 @@ public class Template {
      */
     public void setMatchRegex(String matchRegex) {
         this.matchRegex = matchRegex;
+        this.matchPattern = null;
+    }
+
+    /**
+     * Gets the compiled match regex of the template, matching
+     * in multiline and dotall modes. Regex is compiled once.
+     *
+     * @return the compiled match regex of the template.
+     * @throws PatternSyntaxException if the match regex is invalid.
+     */
+    public Pattern getMatchPattern() {
+        Pattern pattern = matchPattern;
+        if (pattern == null) {
+            pattern = Pattern.compile(matchRegex, Pattern.MULTILINE | Pattern.DOTALL);
+            matchPattern = pattern;
+        }
+        return pattern;
     }
 
     /**
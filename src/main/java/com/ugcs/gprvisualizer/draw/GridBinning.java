@@ -0,0 +1,292 @@
+package com.ugcs.gprvisualizer.draw;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+import com.ugcs.gprvisualizer.math.ArrayMath;
+import com.ugcs.gprvisualizer.utils.Check;
+
+/**
+ * Median binning of the data points on primitive arrays.
+ * <p>
+ * Points are grouped by sorting: point indices are ordered by the
+ * ranks of their coordinates so that the points of a group form
+ * a contiguous run, then medians of the runs are selected
+ * in parallel on slices of a value array.
+ * <p>
+ * Binning is split in two steps, so that several value channels
+ * measured at the same points share the sorting: point locations
+ * are binned once into a {@link Layout}, then medians are computed
+ * for each channel by the runs of the layout. Values at equal
+ * locations are first replaced by their median, and the cell value
+ * is the median of the location values within the cell.
+ */
+final class GridBinning {
+
+	private GridBinning() {
+	}
+
+	/**
+	 * Points binned into the grid cells.
+	 * <p>
+	 * Point indices are ordered by location, location {@code l}
+	 * is a run of the points {@code [locationRuns[l], locationRuns[l + 1])}.
+	 * Locations inside the grid are ordered by cell, cell {@code c}
+	 * is a run of the locations {@code [cellRuns[c], cellRuns[c + 1])}
+	 * and has packed index {@code cellIndices[c]}. Points having invalid
+	 * coordinates are not ordered and are counted as out of bounds.
+	 */
+	record Layout(
+			int[] points, int[] locationRuns,
+			int[] locations, int[] cellRuns, int[] cellIndices,
+			int gridSizeY, int numPoints, int outOfBounds) {
+
+		int numLocations() {
+			return locationRuns.length - 1;
+		}
+
+		int numCells() {
+			return cellIndices.length;
+		}
+	}
+
+	/**
+	 * Cells of the grid having data points: packed cell indices
+	 * {@code x * gridSizeY + y} in ascending order and medians
+	 * of the values in the cells; median of the values of all
+	 * locations including those outside the grid.
+	 */
+	record Cells(int[] indices, double[] medians, int gridSizeY, int outOfBounds, double median) {
+
+		int size() {
+			return indices.length;
+		}
+
+		int x(int cell) {
+			return indices[cell] / gridSizeY;
+		}
+
+		int y(int cell) {
+			return indices[cell] % gridSizeY;
+		}
+	}
+
+	/**
+	 * Bins point locations into the grid cells. Points outside
+	 * the grid or having invalid coordinates are counted but not binned.
+	 */
+	static Layout binLocations(double[] latitudes, double[] longitudes,
+			double minLon, double minLat, double lonStep, double latStep,
+			int gridSizeX, int gridSizeY) {
+		Check.notNull(latitudes);
+		Check.notNull(longitudes);
+		Check.condition(latitudes.length == longitudes.length, "Coordinate arrays differ in length");
+		Check.condition((long) gridSizeX * gridSizeY <= Integer.MAX_VALUE, "Grid is too large");
+
+		int n = latitudes.length;
+		int[] validPoints = new int[n];
+		int numValid = 0;
+		for (int i = 0; i < n; i++) {
+			if (isValid(latitudes[i], longitudes[i])) {
+				validPoints[numValid++] = i;
+			}
+		}
+
+		int[] latRanks = new int[n];
+		int numLats = rank(latitudes, validPoints, numValid, latRanks);
+		int[] lonRanks = new int[n];
+		int numLons = rank(longitudes, validPoints, numValid, lonRanks);
+
+		// stable sorts by longitude and then by latitude order points
+		// by location, and by index within a location
+		int[] points = sortByRank(
+				sortByRank(validPoints, numValid, lonRanks, numLons),
+				numValid, latRanks, numLats);
+		int[] locationRuns = runs(numValid, i -> latRanks[points[i]] != latRanks[points[i - 1]]
+				|| lonRanks[points[i]] != lonRanks[points[i - 1]]);
+		int numLocations = locationRuns.length - 1;
+
+		// cell index in the high bits, location index in the low bits
+		long[] keys = new long[numLocations];
+		int numKeys = 0;
+		int outOfBounds = n - numValid;
+		for (int l = 0; l < numLocations; l++) {
+			int point = points[locationRuns[l]];
+			int xIndex = (int) ((longitudes[point] - minLon) / lonStep);
+			int yIndex = (int) ((latitudes[point] - minLat) / latStep);
+			if (xIndex < 0 || xIndex >= gridSizeX || yIndex < 0 || yIndex >= gridSizeY) {
+				outOfBounds += locationRuns[l + 1] - locationRuns[l];
+				continue;
+			}
+			long cell = (long) xIndex * gridSizeY + yIndex;
+			keys[numKeys++] = cell << 32 | l;
+		}
+		Arrays.parallelSort(keys, 0, numKeys);
+
+		int[] locations = new int[numKeys];
+		for (int i = 0; i < numKeys; i++) {
+			locations[i] = (int) keys[i];
+		}
+		int[] cellRuns = runs(numKeys, i -> keys[i] >>> 32 != keys[i - 1] >>> 32);
+		int numCells = cellRuns.length - 1;
+
+		int[] cellIndices = new int[numCells];
+		for (int c = 0; c < numCells; c++) {
+			cellIndices[c] = (int) (keys[cellRuns[c]] >>> 32);
+		}
+		return new Layout(points, locationRuns, locations, cellRuns, cellIndices,
+				gridSizeY, n, outOfBounds);
+	}
+
+	private static boolean isValid(double latitude, double longitude) {
+		return latitude >= -90 && latitude <= 90
+				&& longitude >= -180 && longitude <= 180;
+	}
+
+	/**
+	 * Sets dense ranks of the coordinates of the points, in ascending
+	 * order of the coordinates; returns the number of distinct ones.
+	 */
+	private static int rank(double[] coordinates, int[] points, int numPoints, int[] ranks) {
+		long[] keys = new long[numPoints];
+		for (int i = 0; i < numPoints; i++) {
+			keys[i] = sortKey(coordinates[points[i]]);
+		}
+		long[] distinct = keys.clone();
+		Arrays.parallelSort(distinct);
+		int numDistinct = 0;
+		for (int i = 0; i < numPoints; i++) {
+			if (i == 0 || distinct[i] != distinct[i - 1]) {
+				distinct[numDistinct++] = distinct[i];
+			}
+		}
+		int size = numDistinct;
+		IntStream.range(0, numPoints).parallel().forEach(i ->
+				ranks[points[i]] = Arrays.binarySearch(distinct, 0, size, keys[i]));
+		return numDistinct;
+	}
+
+	/**
+	 * Returns bits of the coordinate that are ordered as signed
+	 * longs in the order of the values; zeros of both signs
+	 * have the same key.
+	 */
+	private static long sortKey(double coordinate) {
+		long bits = Double.doubleToLongBits(coordinate + 0.0);
+		return bits ^ (bits >> 63 & Long.MAX_VALUE);
+	}
+
+	/**
+	 * Stable counting sort of the points by their ranks.
+	 */
+	private static int[] sortByRank(int[] points, int numPoints, int[] ranks, int numRanks) {
+		int[] starts = new int[numRanks + 1];
+		for (int i = 0; i < numPoints; i++) {
+			starts[ranks[points[i]] + 1]++;
+		}
+		for (int r = 0; r < numRanks; r++) {
+			starts[r + 1] += starts[r];
+		}
+		int[] sorted = new int[numPoints];
+		for (int i = 0; i < numPoints; i++) {
+			int point = points[i];
+			sorted[starts[ranks[point]]++] = point;
+		}
+		return sorted;
+	}
+
+	/**
+	 * Computes medians of the cells for the values of the points
+	 * binned by the layout. NaN values are missing, cells having
+	 * no values are not returned.
+	 *
+	 * @param values values of the points, indexed as the coordinates
+	 *               the layout is built from
+	 */
+	static Cells binValues(Layout layout, double[] values) {
+		Check.notNull(layout);
+		Check.notNull(values);
+		Check.condition(values.length == layout.numPoints(), "Values and points differ in length");
+
+		int[] points = layout.points();
+		int[] locationRuns = layout.locationRuns();
+		int numLocations = layout.numLocations();
+
+		// valid values of a location are moved to the start of its run
+		double[] pointValues = new double[points.length];
+		double[] locationValues = new double[numLocations];
+		IntStream.range(0, numLocations).parallel().forEach(l -> {
+			int from = locationRuns[l];
+			int to = from;
+			for (int i = from; i < locationRuns[l + 1]; i++) {
+				double value = values[points[i]];
+				if (!Double.isNaN(value)) {
+					pointValues[to++] = value;
+				}
+			}
+			locationValues[l] = ArrayMath.median(pointValues, from, to);
+		});
+
+		int numValid = 0;
+		double[] validValues = new double[numLocations];
+		for (double value : locationValues) {
+			if (!Double.isNaN(value)) {
+				validValues[numValid++] = value;
+			}
+		}
+		double median = ArrayMath.median(validValues, 0, numValid);
+
+		int[] locations = layout.locations();
+		int[] cellRuns = layout.cellRuns();
+		int numCells = layout.numCells();
+
+		double[] cellValues = new double[locations.length];
+		double[] cellMedians = new double[numCells];
+		IntStream.range(0, numCells).parallel().forEach(c -> {
+			int from = cellRuns[c];
+			int to = from;
+			for (int i = from; i < cellRuns[c + 1]; i++) {
+				double value = locationValues[locations[i]];
+				if (!Double.isNaN(value)) {
+					cellValues[to++] = value;
+				}
+			}
+			cellMedians[c] = ArrayMath.median(cellValues, from, to);
+		});
+
+		int[] indices = new int[numCells];
+		double[] medians = new double[numCells];
+		int size = 0;
+		for (int c = 0; c < numCells; c++) {
+			if (!Double.isNaN(cellMedians[c])) {
+				indices[size] = layout.cellIndices()[c];
+				medians[size] = cellMedians[c];
+				size++;
+			}
+		}
+		return new Cells(
+				Arrays.copyOf(indices, size),
+				Arrays.copyOf(medians, size),
+				layout.gridSizeY(),
+				layout.outOfBounds(),
+				median);
+	}
+
+	/**
+	 * Returns start positions of the runs in a sorted sequence
+	 * of n elements followed by n; run starts at i when the
+	 * element differs from the previous one.
+	 */
+	private static int[] runs(int n, IntPredicate startsRun) {
+		int[] runs = new int[n + 1];
+		int numRuns = 0;
+		for (int i = 0; i < n; i++) {
+			if (i == 0 || startsRun.test(i)) {
+				runs[numRuns++] = i;
+			}
+		}
+		runs[numRuns++] = n;
+		return Arrays.copyOf(runs, numRuns);
+	}
+}
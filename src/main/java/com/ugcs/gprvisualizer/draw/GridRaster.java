@@ -0,0 +1,222 @@
+package com.ugcs.gprvisualizer.draw;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Colorized raster of a gridding result, cached between repaints.
+ * <p>
+ * Grid values are colorized into an ARGB image with one pixel per
+ * grid cell, so that a repaint is a single scaled image draw.
+ * Colors are taken from a precomputed palette and hill-shading
+ * illumination of the cells is computed once per grid and light
+ * direction; changing the value range or the shading intensity
+ * only recolors the pixels in a parallel pass.
+ * <p>
+ * Colorized image is reduced to a pyramid of levels, each half the
+ * size of the previous one, so that a zoomed out view draws a level
+ * with about one pixel per screen pixel instead of the full grid.
+ */
+final class GridRaster {
+
+	private static final int PALETTE_SIZE = 1024;
+
+	// ARGB colors of the normalized values in [0, 1]
+	private static final int[] PALETTE = createPalette();
+
+	private float @Nullable [][] gridData;
+
+	@Nullable
+	private BufferedImage image;
+
+	// pyramid levels of the colorized image, level 0 is the image itself
+	private BufferedImage[] levels = new BufferedImage[0];
+
+	// illumination of the cells, indexed as the image pixels
+	private float @Nullable [] illumination;
+	private double illuminationAzimuth;
+	private double illuminationAltitude;
+
+	// parameters of the current pixel colors
+	private float minValue;
+	private float maxValue;
+	private boolean hillShadingEnabled;
+	private double hillShadingIntensity;
+
+	private static int[] createPalette() {
+		int[] palette = new int[PALETTE_SIZE];
+		for (int i = 0; i < PALETTE_SIZE; i++) {
+			Color color = GridLayer.getColorForValue(i, 0, PALETTE_SIZE - 1);
+			palette[i] = color.getRGB();
+		}
+		return palette;
+	}
+
+	/**
+	 * Returns the coarsest pyramid level of the grid image that has
+	 * at least one pixel per screen pixel when drawn with the given
+	 * screen size. Image is colorized with the parameters of the
+	 * result, its rows go from north to south.
+	 */
+	synchronized BufferedImage render(GriddingResult gr, double screenWidth, double screenHeight) {
+		update(gr);
+		BufferedImage image = levels[0];
+		double cellsPerPixel = Math.min(
+				image.getWidth() / Math.max(screenWidth, 1),
+				image.getHeight() / Math.max(screenHeight, 1));
+		int level = cellsPerPixel >= 2
+				? (int) (Math.log(cellsPerPixel) / Math.log(2))
+				: 0;
+		return levels[Math.min(level, levels.length - 1)];
+	}
+
+	private void update(GriddingResult gr) {
+		float[][] data = gr.smoothingEnabled()
+				? gr.smoothedGridData()
+				: gr.gridData();
+
+		boolean recolor = false;
+		BufferedImage image = this.image;
+		if (data != gridData || image == null) {
+			gridData = data;
+			image = new BufferedImage(data.length, data[0].length, BufferedImage.TYPE_INT_ARGB);
+			this.image = image;
+			illumination = null;
+			recolor = true;
+		}
+		if (gr.hillShadingEnabled() && (illumination == null
+				|| illuminationAzimuth != gr.hillShadingAzimuth()
+				|| illuminationAltitude != gr.hillShadingAltitude())) {
+			illumination = computeIllumination(data, gr.hillShadingAzimuth(), gr.hillShadingAltitude());
+			illuminationAzimuth = gr.hillShadingAzimuth();
+			illuminationAltitude = gr.hillShadingAltitude();
+			recolor = true;
+		}
+		if (recolor
+				|| minValue != gr.minValue()
+				|| maxValue != gr.maxValue()
+				|| hillShadingEnabled != gr.hillShadingEnabled()
+				|| hillShadingEnabled && hillShadingIntensity != gr.hillShadingIntensity()) {
+			minValue = gr.minValue();
+			maxValue = gr.maxValue();
+			hillShadingEnabled = gr.hillShadingEnabled();
+			hillShadingIntensity = gr.hillShadingIntensity();
+			colorize(data, image);
+			levels = buildPyramid(image);
+		}
+	}
+
+	private static float[] computeIllumination(float[][] data, double azimuth, double altitude) {
+		int width = data.length;
+		int height = data[0].length;
+		float[] illumination = new float[width * height];
+		IntStream.range(0, width).parallel().forEach(i -> {
+			for (int j = 0; j < height; j++) {
+				illumination[pixelIndex(i, j, width, height)] =
+						(float) GridLayer.calculateHillShading(data, i, j, azimuth, altitude);
+			}
+		});
+		return illumination;
+	}
+
+	private static int pixelIndex(int i, int j, int width, int height) {
+		return (height - 1 - j) * width + i;
+	}
+
+	private void colorize(float[][] data, BufferedImage image) {
+		float[] illumination = hillShadingEnabled ? this.illumination : null;
+
+		int width = data.length;
+		int height = data[0].length;
+		int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+		float min = minValue;
+		float scale = maxValue > minValue ? (PALETTE_SIZE - 1) / (maxValue - minValue) : 0f;
+		float intensity = (float) hillShadingIntensity;
+
+		IntStream.range(0, width).parallel().forEach(i -> {
+			float[] column = data[i];
+			for (int j = 0; j < height; j++) {
+				int k = pixelIndex(i, j, width, height);
+				float value = column[j];
+				if (Float.isNaN(value)) {
+					pixels[k] = 0;
+					continue;
+				}
+				int index = (int) ((value - min) * scale);
+				int argb = PALETTE[Math.clamp(index, 0, PALETTE_SIZE - 1)];
+				if (illumination != null) {
+					argb = shade(argb, 1f - (1f - illumination[k]) * intensity);
+				}
+				pixels[k] = argb;
+			}
+		});
+	}
+
+	private static BufferedImage[] buildPyramid(BufferedImage image) {
+		List<BufferedImage> levels = new ArrayList<>();
+		levels.add(image);
+		while (image.getWidth() > 1 || image.getHeight() > 1) {
+			image = downsample(image);
+			levels.add(image);
+		}
+		return levels.toArray(new BufferedImage[0]);
+	}
+
+	/**
+	 * Halves the image averaging 2x2 pixel blocks. Colors are weighted
+	 * by alpha, so that the transparent pixels of the missing values
+	 * do not darken the average and only reduce its opacity.
+	 */
+	private static BufferedImage downsample(BufferedImage source) {
+		int sourceWidth = source.getWidth();
+		int sourceHeight = source.getHeight();
+		int[] sourcePixels = ((DataBufferInt) source.getRaster().getDataBuffer()).getData();
+
+		int width = (sourceWidth + 1) / 2;
+		int height = (sourceHeight + 1) / 2;
+		BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		int[] pixels = ((DataBufferInt) target.getRaster().getDataBuffer()).getData();
+
+		IntStream.range(0, height).parallel().forEach(y -> {
+			for (int x = 0; x < width; x++) {
+				int count = 0;
+				int alpha = 0;
+				int r = 0;
+				int g = 0;
+				int b = 0;
+				for (int sy = 2 * y; sy < Math.min(2 * y + 2, sourceHeight); sy++) {
+					for (int sx = 2 * x; sx < Math.min(2 * x + 2, sourceWidth); sx++) {
+						int argb = sourcePixels[sy * sourceWidth + sx];
+						int a = argb >>> 24;
+						count++;
+						alpha += a;
+						r += a * ((argb >> 16) & 0xff);
+						g += a * ((argb >> 8) & 0xff);
+						b += a * (argb & 0xff);
+					}
+				}
+				pixels[y * width + x] = alpha == 0
+						? 0
+						: (alpha / count) << 24
+								| (r / alpha) << 16
+								| (g / alpha) << 8
+								| (b / alpha);
+			}
+		});
+		return target;
+	}
+
+	private static int shade(int argb, float factor) {
+		int r = Math.clamp((int) (((argb >> 16) & 0xff) * factor), 0, 255);
+		int g = Math.clamp((int) (((argb >> 8) & 0xff) * factor), 0, 255);
+		int b = Math.clamp((int) ((argb & 0xff) * factor), 0, 255);
+		return (argb & 0xff000000) | (r << 16) | (g << 8) | b;
+	}
+}
@@ -0,0 +1,316 @@
+package com.ugcs.gprvisualizer.draw;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.github.thecoldwine.sigrun.common.ext.CsvFile;
+import com.github.thecoldwine.sigrun.common.ext.LatLon;
+import com.ugcs.gprvisualizer.event.GriddingParamsSetted;
+import com.ugcs.gprvisualizer.utils.Check;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Persistent cache of the computed grids.
+ * <p>
+ * Grids are stored in a cache folder, one file per grid, named by
+ * a hash of the gridding input: files, sensor, gridding parameters
+ * and the sensor values, so that any change of the data gives a new key.
+ * Total size of the files is kept under a disk quota by removing
+ * the least recently used grids; file modification time is updated
+ * on every read and serves as the access time.
+ * <p>
+ * File layout is little-endian, grid cells are float32 values
+ * written column by column, as the grid arrays are indexed:
+ * <pre>
+ * header      HEADER_SIZE bytes: size of the grid, bounds and parameters
+ * cells       float[gridSizeX * gridSizeY]
+ * </pre>
+ * Smoothed grid is not stored, it is computed again on load.
+ */
+@Component
+public class GriddingCache {
+
+	private static final Logger log = LoggerFactory.getLogger(GriddingCache.class);
+
+	private static final String CACHE_FILE_EXTENSION = ".grid";
+
+	private static final int MAGIC = 0x44524747; // GGRD
+
+	private static final int VERSION = 2;
+
+	private static final int HEADER_SIZE = 64;
+
+	// header positions
+	private static final int GRID_SIZE_X_POS = 8;
+	private static final int GRID_SIZE_Y_POS = 12;
+	private static final int MIN_LAT_POS = 16;
+	private static final int MIN_LON_POS = 24;
+	private static final int MAX_LAT_POS = 32;
+	private static final int MAX_LON_POS = 40;
+	private static final int CELL_SIZE_POS = 48;
+	private static final int BLANKING_DISTANCE_POS = 56;
+
+	// disk quota for the cached grids, in MB;
+	// zero disables the cache
+	@Value("${gridding.cache.size:512}")
+	private long cacheSize;
+
+	@Value("${gridding.cache.path:${user.home}/.geohammer/grids}")
+	private String cachePath = "";
+
+	/**
+	 * Grid stored in the cache with its bounds
+	 * and the parameters it was computed with.
+	 */
+	public record Entry(
+			float[][] gridData,
+			LatLon minLatLon,
+			LatLon maxLatLon,
+			double cellSize,
+			double blankingDistance) {
+	}
+
+	public boolean isEnabled() {
+		return cacheSize > 0 && !cachePath.isEmpty();
+	}
+
+	/**
+	 * Returns cache key of the sensor grid computed for the job
+	 * from the given point values. NaN values are missing.
+	 */
+	public static String key(GriddingService.GriddingJob job, String sensor,
+			double[] latitudes, double[] longitudes, double[] values) {
+		Check.notNull(job);
+		Check.notEmpty(sensor);
+		Check.condition(latitudes.length == values.length && longitudes.length == values.length,
+				"Coordinate and value arrays differ in length");
+
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+
+		GriddingParamsSetted params = job.params();
+		StringBuilder input = new StringBuilder();
+		input.append(VERSION).append('\n');
+		for (CsvFile csvFile : job.files()) {
+			File file = csvFile.getFile();
+			input.append(file != null ? file.getAbsolutePath() : "").append('\n');
+		}
+		input.append(sensor).append('\n')
+				.append(params.getCellSize()).append('\n')
+				.append(params.getBlankingDistance()).append('\n')
+				.append(params.getInterpolationMethod()).append('\n')
+				.append(params.getIdwPower()).append('\n')
+				.append(params.getIdwMinPoints()).append('\n');
+		digest.update(input.toString().getBytes(StandardCharsets.UTF_8));
+
+		// data version
+		ByteBuffer buffer = ByteBuffer.allocate(3 * Double.BYTES * 1024);
+		for (int i = 0; i < values.length; i++) {
+			if (Double.isNaN(values[i])) {
+				continue;
+			}
+			if (buffer.remaining() < 3 * Double.BYTES) {
+				buffer.flip();
+				digest.update(buffer);
+				buffer.clear();
+			}
+			buffer.putDouble(latitudes[i]);
+			buffer.putDouble(longitudes[i]);
+			buffer.putDouble(values[i]);
+		}
+		buffer.flip();
+		digest.update(buffer);
+
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	private Path getPath(String key) {
+		return Path.of(cachePath, key + CACHE_FILE_EXTENSION);
+	}
+
+	/**
+	 * Reads a grid from the cache, null when the grid is not
+	 * cached or its file cannot be read.
+	 */
+	public synchronized @Nullable Entry get(String key) {
+		Check.notEmpty(key);
+
+		if (!isEnabled()) {
+			return null;
+		}
+		Path path = getPath(key);
+		if (!Files.isRegularFile(path)) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_SIZE) {
+				return null;
+			}
+			// file is read, not mapped: a mapping keeps the file locked
+			// on Windows, so that it could not be replaced or evicted
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			readFully(channel, header, 0);
+			if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+				return null;
+			}
+			int gridSizeX = header.getInt(GRID_SIZE_X_POS);
+			int gridSizeY = header.getInt(GRID_SIZE_Y_POS);
+			if (gridSizeX <= 0 || gridSizeY <= 0
+					|| size != HEADER_SIZE + (long) gridSizeX * gridSizeY * Float.BYTES) {
+				return null;
+			}
+
+			float[][] gridData = new float[gridSizeX][gridSizeY];
+			ByteBuffer cells = ByteBuffer.allocate(gridSizeY * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			long position = HEADER_SIZE;
+			for (float[] column : gridData) {
+				readFully(channel, cells.clear(), position);
+				cells.flip().asFloatBuffer().get(column);
+				position += cells.capacity();
+			}
+			Entry entry = new Entry(gridData,
+					new LatLon(header.getDouble(MIN_LAT_POS), header.getDouble(MIN_LON_POS)),
+					new LatLon(header.getDouble(MAX_LAT_POS), header.getDouble(MAX_LON_POS)),
+					header.getDouble(CELL_SIZE_POS),
+					header.getDouble(BLANKING_DISTANCE_POS));
+
+			// access time for eviction
+			Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+			return entry;
+		} catch (IOException e) {
+			log.warn("Cannot read cached grid {}", path, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Writes a grid to the cache and evicts the least recently
+	 * used grids when the cache exceeds its quota.
+	 */
+	public synchronized void put(String key, Entry entry) {
+		Check.notEmpty(key);
+		Check.notNull(entry);
+
+		if (!isEnabled()) {
+			return;
+		}
+		float[][] gridData = entry.gridData();
+		int gridSizeX = gridData.length;
+		int gridSizeY = gridSizeX > 0 ? gridData[0].length : 0;
+		if (gridSizeX == 0 || gridSizeY == 0) {
+			return;
+		}
+
+		Path path = getPath(key);
+		Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+		try {
+			Files.createDirectories(path.getParent());
+			try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+					StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+				header.putInt(0, MAGIC);
+				header.putInt(4, VERSION);
+				header.putInt(GRID_SIZE_X_POS, gridSizeX);
+				header.putInt(GRID_SIZE_Y_POS, gridSizeY);
+				header.putDouble(MIN_LAT_POS, entry.minLatLon().getLatDgr());
+				header.putDouble(MIN_LON_POS, entry.minLatLon().getLonDgr());
+				header.putDouble(MAX_LAT_POS, entry.maxLatLon().getLatDgr());
+				header.putDouble(MAX_LON_POS, entry.maxLatLon().getLonDgr());
+				header.putDouble(CELL_SIZE_POS, entry.cellSize());
+				header.putDouble(BLANKING_DISTANCE_POS, entry.blankingDistance());
+				writeFully(channel, header);
+
+				ByteBuffer cells = ByteBuffer.allocate(gridSizeY * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+				for (float[] column : gridData) {
+					cells.clear();
+					cells.asFloatBuffer().put(column);
+					writeFully(channel, cells);
+				}
+			}
+			Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			log.warn("Cannot write cached grid {}", path, e);
+			try {
+				Files.deleteIfExists(tmp);
+			} catch (IOException ignored) {
+				// best effort
+			}
+			return;
+		}
+		evict();
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position + buffer.position());
+			if (read < 0) {
+				throw new EOFException();
+			}
+		}
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	private record CachedFile(Path path, long size, long accessed) {
+	}
+
+	private void evict() {
+		long quota = cacheSize << 20;
+		List<CachedFile> files = new ArrayList<>();
+		try (Stream<Path> paths = Files.list(Path.of(cachePath))) {
+			for (Path path : paths.toList()) {
+				if (path.getFileName().toString().endsWith(CACHE_FILE_EXTENSION)) {
+					files.add(new CachedFile(path, Files.size(path),
+							Files.getLastModifiedTime(path).toMillis()));
+				}
+			}
+		} catch (IOException e) {
+			log.warn("Cannot list cached grids", e);
+			return;
+		}
+
+		long total = files.stream().mapToLong(CachedFile::size).sum();
+		files.sort(Comparator.comparingLong(CachedFile::accessed));
+		for (CachedFile file : files) {
+			if (total <= quota) {
+				break;
+			}
+			try {
+				Files.deleteIfExists(file.path());
+				total -= file.size();
+			} catch (IOException e) {
+				log.warn("Cannot remove cached grid {}", file.path(), e);
+			}
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package com.ugcs.gprvisualizer.draw;
+
+import com.github.thecoldwine.sigrun.common.ext.LatLon;
+
+/**
+ * Gridding result of a file: interpolated and smoothed grids
+ * with the parameters they were computed and rendered with.
+ * Both grids are computed by the gridding worker, so that switching
+ * smoothing on only selects the grid to draw.
+ */
+record GriddingResult(
+		float[][] gridData, float[][] smoothedGridData,
+		LatLon minLatLon, LatLon maxLatLon,
+		double cellSize, double blankingDistance,
+		Float minValue, Float maxValue,
+		String sensor,
+		// Hill-shading parameters
+		boolean hillShadingEnabled, boolean smoothingEnabled,
+		double hillShadingAzimuth,
+		double hillShadingAltitude,
+		double hillShadingIntensity,
+		// colorized raster cache, shared by the copies of the result
+		GridRaster raster) {
+
+	public GriddingResult setValues(float minValue, float maxValue, boolean hillShadingEnabled, boolean smoothingEnabled) {
+		return new GriddingResult(
+				gridData, smoothedGridData,
+				minLatLon, maxLatLon,
+				cellSize, blankingDistance,
+				minValue, maxValue,
+				sensor,
+				hillShadingEnabled, smoothingEnabled,
+				hillShadingAzimuth,
+				hillShadingAltitude,
+				hillShadingIntensity,
+				raster
+		);
+	}
+}
@@ -0,0 +1,733 @@
+package com.ugcs.gprvisualizer.draw;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleConsumer;
+import java.util.stream.IntStream;
+
+import com.github.thecoldwine.sigrun.common.ext.CsvFile;
+import com.github.thecoldwine.sigrun.common.ext.LatLon;
+import com.ugcs.gprvisualizer.app.parcers.GeoData;
+import com.ugcs.gprvisualizer.app.parcers.SensorTable;
+import com.ugcs.gprvisualizer.event.GriddingParamsSetted;
+import com.ugcs.gprvisualizer.math.DistanceTransform;
+import com.ugcs.gprvisualizer.math.IDWInterpolator;
+import com.ugcs.gprvisualizer.math.MinimumCurvatureGridder;
+import com.ugcs.gprvisualizer.math.PointKdTree;
+import com.ugcs.gprvisualizer.utils.Check;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Computes grids in background off the map drawing thread.
+ * <p>
+ * A single gridding job is active at a time: submitting a job
+ * supersedes the running one, which is cancelled at the next
+ * checkpoint between the gridding stages. Progress of the active
+ * job is reported to the listener given on submit.
+ */
+@Component
+public class GriddingService {
+
+	private static final Logger log = LoggerFactory.getLogger(GriddingService.class);
+
+	private final AtomicInteger threadCounter = new AtomicInteger();
+
+	// superseded job may still run to its next checkpoint,
+	// second worker lets a new job start meanwhile
+	private final ExecutorService executor = Executors.newFixedThreadPool(2, r -> {
+		Thread thread = new Thread(r, "gridding-" + threadCounter.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final GriddingCache griddingCache;
+
+	@Nullable
+	private GriddingTask activeTask;
+
+	public GriddingService(GriddingCache griddingCache) {
+		this.griddingCache = griddingCache;
+	}
+
+	/**
+	 * Gridding input: files to collect data points from,
+	 * displayed sensor with its value range and gridding
+	 * parameters. All numeric sensors of the files are gridded.
+	 */
+	public record GriddingJob(
+			List<CsvFile> files,
+			String sensor,
+			GriddingParamsSetted params,
+			float minValue,
+			float maxValue) {
+	}
+
+	/**
+	 * Submits a job, cancelling the active one. Returned future
+	 * completes with the results by sensor or is cancelled when
+	 * the job is superseded; results are empty when there is no data.
+	 */
+	public synchronized CompletableFuture<Map<String, GriddingResult>> submit(GriddingJob job,
+			DoubleConsumer progressListener) {
+		Check.notNull(job);
+		Check.notNull(progressListener);
+
+		cancel();
+
+		GriddingTask task = new GriddingTask(job, progressListener);
+		activeTask = task;
+		executor.execute(task);
+		return task.future;
+	}
+
+	/**
+	 * Cancels the active job if any.
+	 */
+	public synchronized void cancel() {
+		if (activeTask != null) {
+			activeTask.cancel();
+			activeTask = null;
+		}
+	}
+
+	private synchronized void complete(GriddingTask task) {
+		if (activeTask == task) {
+			activeTask = null;
+		}
+	}
+
+	private class GriddingTask implements Runnable {
+
+		private final GriddingJob job;
+
+		private final DoubleConsumer progressListener;
+
+		private final CompletableFuture<Map<String, GriddingResult>> future = new CompletableFuture<>();
+
+		private volatile boolean cancelled;
+
+		GriddingTask(GriddingJob job, DoubleConsumer progressListener) {
+			this.job = job;
+			this.progressListener = progressListener;
+		}
+
+		void cancel() {
+			cancelled = true;
+			future.cancel(false);
+		}
+
+		private void progress(double progress) {
+			if (cancelled) {
+				throw new CancellationException();
+			}
+			progressListener.accept(progress);
+		}
+
+		@Override
+		public void run() {
+			try {
+				if (!cancelled) {
+					future.complete(grid(job, griddingCache, this::progress));
+				}
+			} catch (CancellationException e) {
+				log.debug("Gridding cancelled");
+			} catch (Exception e) {
+				log.error("Gridding failed", e);
+				future.completeExceptionally(e);
+			} finally {
+				complete(this);
+			}
+		}
+	}
+
+	/**
+	 * Computes grids of the job sensors.
+	 * <p>
+	 * The method performs the following steps:
+	 * 1. Collects values of all numeric sensors from the files
+	 * 2. Bins point locations into a grid based on cell size
+	 * 3. Interpolates missing values using splines or IDW
+	 * 4. Applies a low-pass filter to smooth the interpolated data
+	 * <p>
+	 * Sensors share the grid bounds, the binning of the locations
+	 * and the blanking mask, which are computed once; sensors are
+	 * then gridded in parallel. Grids computed for the same data
+	 * and parameters are read back from the gridding cache.
+	 * <p>
+	 * Progress listener is called between the steps and
+	 * may abort computation by throwing CancellationException.
+	 *
+	 * @return results by sensor, empty when there is no data
+	 */
+	static Map<String, GriddingResult> grid(GriddingJob job, GriddingCache cache, DoubleConsumer progress) {
+		GriddingParamsSetted params = job.params();
+
+		var startFiltering = System.currentTimeMillis();
+		progress.accept(0.0);
+
+		Samples samples = getSamples(job.files(), job.sensor());
+		if (samples.size() == 0) {
+			return Map.of();
+		}
+		List<String> sensors = samples.sensors();
+		int numSensors = sensors.size();
+
+		GriddingResult[] results = new GriddingResult[numSensors];
+		String[] cacheKeys = new String[numSensors];
+		int numCached = 0;
+		if (cache.isEnabled()) {
+			for (int s = 0; s < numSensors; s++) {
+				cacheKeys[s] = GriddingCache.key(job, sensors.get(s),
+						samples.latitudes(), samples.longitudes(), samples.values()[s]);
+				GriddingCache.Entry entry = cache.get(cacheKeys[s]);
+				if (entry != null) {
+					log.debug("Grid of {} read from cache: {}", sensors.get(s), cacheKeys[s]);
+					results[s] = toResult(job, sensors.get(s), entry.gridData(),
+							entry.minLatLon(), entry.maxLatLon());
+					numCached++;
+				}
+			}
+		}
+		if (numCached == numSensors) {
+			progress.accept(1.0);
+			return toMap(sensors, results);
+		}
+		progress.accept(0.1);
+
+		double minLon = Arrays.stream(samples.longitudes()).min().orElseThrow();
+		double maxLon = Arrays.stream(samples.longitudes()).max().orElseThrow();
+		double minLat = Arrays.stream(samples.latitudes()).min().orElseThrow();
+		double maxLat = Arrays.stream(samples.latitudes()).max().orElseThrow();
+
+		var minLatLon = new LatLon(minLat, minLon);
+		var maxLatLon = new LatLon(maxLat, maxLon);
+
+		int gridSizeX = (int) Math.max(new LatLon(minLat, minLon).getDistance(new LatLon(minLat, maxLon)),
+				new LatLon(maxLat, minLon).getDistance(new LatLon(maxLat, maxLon)));
+
+		gridSizeX = (int) (gridSizeX / params.getCellSize());
+
+		int gridSizeY = (int) Math.max(new LatLon(minLat, minLon).getDistance(new LatLon(maxLat, minLon)),
+				new LatLon(minLat, maxLon).getDistance(new LatLon(maxLat, maxLon)));
+
+		gridSizeY = (int) (gridSizeY / params.getCellSize());
+
+		double lonStep = (maxLon - minLon) / gridSizeX;
+		double latStep = (maxLat - minLat) / gridSizeY;
+
+		GridBinning.Layout layout = GridBinning.binLocations(samples.latitudes(), samples.longitudes(),
+				minLon, minLat, lonStep, latStep, gridSizeX, gridSizeY);
+		if (layout.outOfBounds() > 0) {
+			log.warn("Points out of grid bounds: {}", layout.outOfBounds());
+		}
+		progress.accept(0.2);
+
+		// cells within the blanking distance to the cells with data of any sensor,
+		// exact for the sensors having values in all the cells
+		boolean[][] visibleCells = blankingMask(layout.cellIndices(), gridSizeX, gridSizeY, params);
+
+		log.debug("Filtering complete in {}ms", System.currentTimeMillis() - startFiltering);
+		progress.accept(0.3);
+
+		int sizeX = gridSizeX;
+		int sizeY = gridSizeY;
+		int numGridded = numSensors - numCached;
+		AtomicInteger gridded = new AtomicInteger();
+		IntStream.range(0, numSensors).parallel().forEach(s -> {
+			if (results[s] != null) {
+				return;
+			}
+			GridBinning.Cells cells = GridBinning.binValues(layout, samples.values()[s]);
+			if (cells.size() > 0) {
+				boolean[][] visiblePoints = cells.size() == layout.numCells()
+						? visibleCells
+						: blankingMask(cells.indices(), sizeX, sizeY, params);
+				float[][] gridData = grid(cells, visiblePoints, params, sizeX, sizeY);
+				if (cacheKeys[s] != null) {
+					cache.put(cacheKeys[s], new GriddingCache.Entry(gridData, minLatLon, maxLatLon,
+							params.getCellSize(), params.getBlankingDistance()));
+				}
+				results[s] = toResult(job, sensors.get(s), gridData, minLatLon, maxLatLon);
+			}
+			progress.accept(0.3 + 0.7 * gridded.incrementAndGet() / numGridded);
+		});
+
+		return toMap(sensors, results);
+	}
+
+	/**
+	 * Interpolates grid of a sensor from the medians of the cells
+	 * and blanks the cells outside the visible area.
+	 */
+	private static float[][] grid(GridBinning.Cells cells, boolean[][] visiblePoints,
+			GriddingParamsSetted params, int gridSizeX, int gridSizeY) {
+		var gridData = new float[gridSizeX][gridSizeY];
+
+		boolean[][] m = new boolean[gridSizeX][gridSizeY];
+		for (int i = 0; i < gridSizeX; i++) {
+			for (int j = 0; j < gridSizeY; j++) {
+				m[i][j] = true;
+			}
+		}
+
+		for (int cell = 0; cell < cells.size(); cell++) {
+			int xIndex = cells.x(cell);
+			int yIndex = cells.y(cell);
+			gridData[xIndex][yIndex] = (float) cells.medians()[cell];
+			m[xIndex][yIndex] = false;
+		}
+
+		boolean idw = params.getInterpolationMethod() == GriddingParamsSetted.InterpolationMethod.IDW;
+		if (!idw) {
+			m = thinOutBooleanGrid(m);
+		}
+
+		for (int i = 0; i < gridData.length; i++) {
+			for (int j = 0; j < gridData[0].length; j++) {
+				if (!m[i][j]) {
+					continue;
+				}
+
+				gridData[i][j] = (float) cells.median();
+
+				if (!visiblePoints[i][j]) {
+					m[i][j] = false;
+				}
+			}
+		}
+
+		if (idw) {
+			interpolateIdw(cells, m, gridData, params);
+		} else {
+			interpolateSplines(m, gridData);
+		}
+
+		for (int i = 0; i < gridData.length; i++) {
+			for (int j = 0; j < gridData[0].length; j++) {
+				if (!visiblePoints[i][j]) {
+					gridData[i][j] = Float.NaN;
+				}
+			}
+		}
+		return gridData;
+	}
+
+	/**
+	 * Returns flags of the cells within the blanking distance
+	 * to the cells with data.
+	 *
+	 * @param cellIndices packed indices of the cells with data
+	 */
+	private static boolean[][] blankingMask(int[] cellIndices, int gridSizeX, int gridSizeY,
+			GriddingParamsSetted params) {
+		boolean[][] hasData = new boolean[gridSizeX][gridSizeY];
+		for (int cellIndex : cellIndices) {
+			hasData[cellIndex / gridSizeY][cellIndex % gridSizeY] = true;
+		}
+		return DistanceTransform.withinDistance(hasData,
+				params.getBlankingDistance() / params.getCellSize());
+	}
+
+	private static Map<String, GriddingResult> toMap(List<String> sensors, GriddingResult[] results) {
+		Map<String, GriddingResult> map = new LinkedHashMap<>();
+		for (int s = 0; s < results.length; s++) {
+			if (results[s] != null) {
+				map.put(sensors.get(s), results[s]);
+			}
+		}
+		return map;
+	}
+
+	private static GriddingResult toResult(GriddingJob job, String sensor, float[][] gridData,
+			LatLon minLatLon, LatLon maxLatLon) {
+		GriddingParamsSetted params = job.params();
+
+		// smoothed grid is computed here, on the gridding worker,
+		// so that enabling smoothing does not filter on repaint
+		var smoothedGridData = applyLowPassFilter(gridData);
+
+		// value range of the other sensors is set when they are displayed
+		float minValue = job.minValue();
+		float maxValue = job.maxValue();
+		if (!sensor.equals(job.sensor())) {
+			minValue = Float.POSITIVE_INFINITY;
+			maxValue = Float.NEGATIVE_INFINITY;
+			for (float[] column : gridData) {
+				for (float value : column) {
+					if (!Float.isNaN(value)) {
+						minValue = Math.min(minValue, value);
+						maxValue = Math.max(maxValue, value);
+					}
+				}
+			}
+		}
+
+		return new GriddingResult(
+				gridData,
+				smoothedGridData,
+				minLatLon,
+				maxLatLon,
+				params.getCellSize(),
+				params.getBlankingDistance(),
+				minValue,
+				maxValue,
+				sensor,
+				params.isHillShadingEnabled(),
+				params.isSmoothingEnabled(),
+				params.getHillShadingAzimuth(),
+				params.getHillShadingAltitude(),
+				params.getHillShadingIntensity(),
+				new GridRaster()
+		);
+	}
+
+	private static void interpolateSplines(boolean[][] m, float[][] gridData) {
+		log.debug("Minimum curvature interpolation");
+		var start = System.currentTimeMillis();
+
+		var gridder = new MinimumCurvatureGridder();
+		gridder.gridMissing(m, gridData);
+
+		log.debug("Interpolation complete in {}ms, iterations: {}",
+				System.currentTimeMillis() - start, gridder.getIterationCount());
+	}
+
+	/**
+	 * Interpolates missing visible cells by the k nearest cells
+	 * having data points. Distances are measured in cells,
+	 * which are square, and the search is not bounded as the
+	 * missing cells are already within the blanking distance.
+	 */
+	private static void interpolateIdw(GridBinning.Cells cells, boolean[][] m, float[][] gridData,
+			GriddingParamsSetted params) {
+		log.debug("IDW interpolation");
+		var start = System.currentTimeMillis();
+
+		int n = cells.size();
+		double[] xs = new double[n];
+		double[] ys = new double[n];
+		for (int cell = 0; cell < n; cell++) {
+			xs[cell] = cells.x(cell);
+			ys[cell] = cells.y(cell);
+		}
+		var tree = new PointKdTree(xs, ys, cells.medians());
+		var interpolator = new IDWInterpolator(tree,
+				params.getIdwPower(), params.getIdwMinPoints(), Double.POSITIVE_INFINITY);
+		interpolator.gridMissing(m, gridData);
+
+		log.debug("Interpolation complete in {}ms", System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * Before thinning, determine the minimum number of true values per row and column.
+	 */
+	private static int[] computeRowColMin(boolean[][] gridData) {
+		int rows = gridData.length;
+		int cols = rows > 0 ? gridData[0].length : 0;
+		int[] rowCounts = new int[rows];
+		int[] colCounts = new int[cols];
+
+		for (int i = 0; i < rows; i++) {
+			int countRow = 0;
+			for (int j = 0; j < cols; j++) {
+				if (!gridData[i][j]) {
+					countRow++;
+					colCounts[j]++;
+				}
+			}
+			rowCounts[i] = countRow;
+		}
+		int rowsum = 0;
+		int rowcount = 0;
+		for (int i = 0; i < rows; i++) {
+			if (rowCounts[i] > cols * 0.01) {
+				rowsum += rowCounts[i];
+				rowcount++;
+			}
+		}
+
+		int colsum = 0;
+		int colcount = 0;
+		for (int j = 0; j < cols; j++) {
+			if (colCounts[j] > rows * 0.01) {
+				colsum += colCounts[j];
+				colcount++;
+			}
+		}
+		return new int[]{rowsum / (rowcount != 0 ? rowcount : 1), colsum / (colcount != 0 ? colcount : 1)};
+	}
+
+	/**
+	 * Applies a low-pass filter to the grid data to smooth out high-frequency variations.
+	 * Uses a Gaussian kernel for the convolution.
+	 * <p>
+	 * Gaussian kernel is separable, so the convolution is done in two
+	 * passes: along the columns and then along the rows. NaN values are
+	 * excluded by convolving the values and the weights of the valid
+	 * cells separately and normalizing by the convolved weight, which
+	 * equals normalization of the 2D kernel by the weights of the valid
+	 * cells within it. NaN values stay NaN. Passes are parallel by rows.
+	 *
+	 * @param gridData The grid data to filter
+	 */
+	static float[][] applyLowPassFilter(float[][] gridData) {
+		if (gridData == null || gridData.length == 0 || gridData[0].length == 0) {
+			return gridData;
+		}
+
+		int kernelRadius = 7;
+		double sigma = 5.0;
+
+		log.debug("Applying low-pass filter with {}x{} kernel", 2 * kernelRadius + 1, 2 * kernelRadius + 1);
+		long startTime = System.currentTimeMillis();
+
+		// normalization cancels out in the ratio of the convolutions
+		float[] kernel = new float[2 * kernelRadius + 1];
+		for (int k = -kernelRadius; k <= kernelRadius; k++) {
+			kernel[k + kernelRadius] = (float) Math.exp(-(k * k) / (2 * sigma * sigma));
+		}
+
+		int width = gridData.length;
+		int height = gridData[0].length;
+
+		// convolution of the valid values and of their weights along the columns
+		float[][] values = new float[width][height];
+		float[][] weights = new float[width][height];
+		IntStream.range(0, width).parallel().forEach(i -> {
+			float[] row = gridData[i];
+			// valid values with zeros in place of NaN, and validity mask
+			float[] valid = new float[height];
+			float[] mask = new float[height];
+			for (int j = 0; j < height; j++) {
+				boolean isValid = !Float.isNaN(row[j]);
+				valid[j] = isValid ? row[j] : 0f;
+				mask[j] = isValid ? 1f : 0f;
+			}
+			float[] valueRow = values[i];
+			float[] weightRow = weights[i];
+			for (int j = 0; j < height; j++) {
+				float value = 0;
+				float weight = 0;
+				int from = Math.max(j - kernelRadius, 0);
+				int to = Math.min(j + kernelRadius, height - 1);
+				for (int nj = from; nj <= to; nj++) {
+					float w = kernel[nj - j + kernelRadius];
+					value += valid[nj] * w;
+					weight += mask[nj] * w;
+				}
+				valueRow[j] = value;
+				weightRow[j] = weight;
+			}
+		});
+
+		// convolution along the rows
+		float[][] resultData = new float[width][height];
+		IntStream.range(0, width).parallel().forEach(i -> {
+			float[] row = gridData[i];
+			float[] resultRow = resultData[i];
+			float[] value = new float[height];
+			float[] weight = new float[height];
+			int from = Math.max(i - kernelRadius, 0);
+			int to = Math.min(i + kernelRadius, width - 1);
+			for (int ni = from; ni <= to; ni++) {
+				float w = kernel[ni - i + kernelRadius];
+				float[] valueRow = values[ni];
+				float[] weightRow = weights[ni];
+				for (int j = 0; j < height; j++) {
+					value[j] += valueRow[j] * w;
+					weight[j] += weightRow[j] * w;
+				}
+			}
+			for (int j = 0; j < height; j++) {
+				// Skip NaN values
+				resultRow[j] = Float.isNaN(row[j]) || weight[j] <= 0
+						? row[j]
+						: value[j] / weight[j];
+			}
+		});
+
+		log.debug("Low-pass filter applied in {}ms", System.currentTimeMillis() - startTime);
+		return resultData;
+	}
+
+	/**
+	 * Thin out the matrix by rows and columns so that the minimum density is not reduced.
+	 * If almost all cells are filled, the array is returned unchanged.
+	 */
+	public static boolean[][] thinOutBooleanGrid(boolean[][] gridData) {
+		int rows = gridData.length;
+		int cols = rows > 0 ? gridData[0].length : 0;
+
+		int[] minValues = computeRowColMin(gridData);
+		int minRowTrue = minValues[0];
+		int minColTrue = minValues[1];
+
+		if (minRowTrue >= cols * 0.9 && minColTrue >= rows * 0.9 || minRowTrue == 0 && minColTrue == 0) {
+			return gridData;
+		}
+
+		double avg = Math.min(0.22, Math.min((double) minRowTrue / cols, (double) minColTrue / rows));
+
+		if (avg < 0.05) {
+			return gridData;
+		}
+
+		boolean[][] result = new boolean[rows][cols];
+		for (int i = 0; i < rows; i++) {
+			System.arraycopy(gridData[i], 0, result[i], 0, cols);
+		}
+
+		for (int i = 0; i < rows; i++) {
+			List<Integer> trueIndices = new ArrayList<>();
+			for (int j = 0; j < cols; j++) {
+				if (!result[i][j]) {
+					trueIndices.add(j);
+				}
+			}
+			int count = trueIndices.size();
+			minRowTrue = (int) (avg * cols);
+			if (count > minRowTrue && minRowTrue > 0) {
+				List<Integer> keepIndices = new ArrayList<>();
+				double step = (double) (count - 1) / (minRowTrue - 1);
+				for (int k = 0; k < minRowTrue; k++) {
+					int index = trueIndices.get((int) Math.round(k * step));
+					keepIndices.add(index);
+				}
+				for (int j = 0; j < cols; j++) {
+					result[i][j] = true;
+				}
+				for (int j : keepIndices) {
+					result[i][j] = false;
+				}
+			}
+		}
+
+		for (int j = 0; j < cols; j++) {
+			List<Integer> trueIndices = new ArrayList<>();
+			for (int i = 0; i < rows; i++) {
+				if (!result[i][j]) {
+					trueIndices.add(i);
+				}
+			}
+			int count = trueIndices.size();
+			minColTrue = (int) (avg * rows);
+			if (count > minColTrue && minColTrue > 0) {
+				List<Integer> keepIndices = new ArrayList<>();
+				double step = (double) (count - 1) / (minColTrue - 1);
+				for (int k = 0; k < minColTrue; k++) {
+					int index = trueIndices.get((int) Math.round(k * step));
+					keepIndices.add(index);
+				}
+				for (int i = 0; i < rows; i++) {
+					result[i][j] = true;
+				}
+				for (int i : keepIndices) {
+					result[i][j] = false;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Values of the sensors at the points: values of sensor
+	 * {@code s} are {@code values[s]}, indexed as the coordinates,
+	 * NaN when the point has no value of the sensor.
+	 */
+	private record Samples(double[] latitudes, double[] longitudes,
+			List<String> sensors, double[][] values) {
+
+		int size() {
+			return latitudes.length;
+		}
+	}
+
+	/**
+	 * Collects values of the numeric sensors of the files in a single
+	 * pass over the data. Line and mark flags are collected only when
+	 * they are the displayed sensor. Points without values are skipped.
+	 */
+	private static Samples getSamples(List<CsvFile> files, String displayedSensor) {
+		Set<String> excluded = new HashSet<>(List.of(
+				GeoData.Semantic.LINE.getName(),
+				GeoData.Semantic.MARK.getName()));
+		excluded.remove(displayedSensor);
+
+		int capacity = 0;
+		for (CsvFile csvFile : files) {
+			capacity += csvFile.getGeoData().size();
+		}
+		double[] latitudes = new double[capacity];
+		double[] longitudes = new double[capacity];
+		// sensor values by sensor, in order of appearance
+		Map<String, double[]> values = new LinkedHashMap<>();
+
+		int n = 0;
+		for (CsvFile csvFile : files) {
+			// value arrays by column of the sensor table,
+			// resolved once per table
+			SensorTable table = null;
+			double[][] columnValues = new double[0][];
+			boolean[] columnExcluded = new boolean[0];
+			for (GeoData geoData : csvFile.getGeoData()) {
+				if (geoData.getSensorTable() != table) {
+					table = geoData.getSensorTable();
+					columnValues = new double[table.numColumns()][];
+					columnExcluded = new boolean[table.numColumns()];
+					for (int c = 0; c < table.numColumns(); c++) {
+						columnExcluded[c] = excluded.contains(table.getSemantic(c));
+					}
+				}
+				int row = geoData.getRow();
+				boolean hasValues = false;
+				for (int c = 0; c < columnValues.length; c++) {
+					if (columnExcluded[c] || !table.hasValue(c, row)) {
+						continue;
+					}
+					if (columnValues[c] == null) {
+						columnValues[c] = values.computeIfAbsent(table.getSemantic(c), k -> {
+							double[] a = new double[latitudes.length];
+							Arrays.fill(a, Double.NaN);
+							return a;
+						});
+					}
+					columnValues[c][n] = table.getDouble(c, row);
+					hasValues = true;
+				}
+				if (hasValues) {
+					latitudes[n] = geoData.getLatitude();
+					longitudes[n] = geoData.getLongitude();
+					n++;
+				}
+			}
+		}
+
+		// displayed sensor goes first
+		List<String> sensors = new ArrayList<>(values.keySet());
+		if (sensors.remove(displayedSensor)) {
+			sensors.addFirst(displayedSensor);
+		}
+		double[][] sensorValues = new double[sensors.size()][];
+		for (int s = 0; s < sensors.size(); s++) {
+			sensorValues[s] = Arrays.copyOf(values.get(sensors.get(s)), n);
+		}
+		return new Samples(
+				Arrays.copyOf(latitudes, n),
+				Arrays.copyOf(longitudes, n),
+				sensors,
+				sensorValues);
+	}
+}
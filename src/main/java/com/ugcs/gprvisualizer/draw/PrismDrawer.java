@@ -73,6 +73,7 @@ public class PrismDrawer {
 		int finishTrace = field.getLastVisibleTrace();
 		int lastSample = field.getLastVisibleSample(rect.height);
 		
+		float[] samples = new float[0];
 		for (int i = startTrace; i < finishTrace; i++) {
 
 			int traceStartX = field.traceToScreen(i);
@@ -83,6 +84,10 @@ public class PrismDrawer {
 			}
 			
 			Trace trace = traces.get(i);
+			if (samples.length < trace.numSamples()) {
+				samples = new float[trace.numSamples()];
+			}
+			trace.getSamples(samples, 0);
 			float middleAmp = profileSettings.hypermiddleamp;
 
 			int horshift = profileSettings.levelPreviewShift.intValue();
@@ -104,7 +109,7 @@ public class PrismDrawer {
 				if (z < 0 || z >= trace.numSamples()) {
 					continue;
 				}
-				float v = trace.getSample(z);
+				float v = samples[z];
 				int color = tanh.trans(v - middleAmp);
 				
 				if (showEdge && trace.getEdge(j) > 0) {
@@ -6,23 +6,30 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import com.github.thecoldwine.sigrun.common.ext.FlatSampleStore;
 import com.github.thecoldwine.sigrun.common.ext.LatLon;
 import com.github.thecoldwine.sigrun.common.ext.MetaFile;
+import com.github.thecoldwine.sigrun.common.ext.PagedSampleStore;
+import com.github.thecoldwine.sigrun.common.ext.SamplePageCache;
+import com.github.thecoldwine.sigrun.common.ext.SampleStore;
 import com.github.thecoldwine.sigrun.common.ext.Trace;
+import com.github.thecoldwine.sigrun.common.ext.TraceCacheFile;
 
 import com.github.thecoldwine.sigrun.common.ext.TraceFile;
 import com.github.thecoldwine.sigrun.common.ext.TraceGeoData;
 import com.ugcs.gprvisualizer.app.auxcontrol.BaseObject;
 import com.ugcs.gprvisualizer.app.parcers.GeoData;
-import com.ugcs.gprvisualizer.math.MinMaxAvg;
 import com.ugcs.gprvisualizer.obm.ObjectByteMapper;
 import com.ugcs.gprvisualizer.utils.AuxElements;
 import com.ugcs.gprvisualizer.utils.Check;
@@ -42,6 +49,9 @@ public class DztFile extends TraceFile {
 	private static final int GPSAREASIZE = 2 * 12;
 	private static final int INFOAREASIZE = (MINHEADSIZE - PARAREASIZE- GPSAREASIZE) ;
 
+	// rh_nchan position in the header
+	private static final int NCHAN_POS = 52;
+
 	private static final Map<Integer, SampleCodec> SAMPLE_CODECS = Map.of(
 			16, new Sample16Bit(),
 			32, new Sample32Bit());
@@ -53,7 +63,46 @@ public class DztFile extends TraceFile {
 
 	private DztHeader header = new DztHeader();
 
-	private MinMaxAvg sampleAvg = new MinMaxAvg();
+	// index of the channel read from a multi-channel file
+	private final int channel;
+
+	// average over all samples of the channel
+	private double sampleAvg;
+
+	public DztFile() {
+		this(0);
+	}
+
+	public DztFile(int channel) {
+		Check.condition(channel >= 0);
+		this.channel = channel;
+	}
+
+	public int getChannel() {
+		return channel;
+	}
+
+	public int getNumChannels() {
+		return Math.max(1, (int)header.rh_nchan);
+	}
+
+	/**
+	 * Suffix distinguishing files of the channels
+	 * of a multi-channel source, empty for a single channel.
+	 */
+	public String getChannelSuffix() {
+		return getNumChannels() > 1
+				? "_ch" + (channel + 1)
+				: "";
+	}
+
+	@Override
+	public Path getMetaPath() {
+		File source = getFile();
+		Check.notNull(source);
+
+		return MetaFile.getMetaPath(source, getChannelSuffix());
+	}
 
 	@Override
 	public int getSampleInterval() {
@@ -85,42 +134,77 @@ public class DztFile extends TraceFile {
 
 		dzg.load(getDzgFile(file));
 
-		List<Trace> traces;
-		try (SeekableByteChannel channel = Files.newByteChannel(file.toPath(), StandardOpenOption.READ)) {
-			ByteBuffer buffer = readHeader(channel);
-
+		try (SeekableByteChannel in = Files.newByteChannel(file.toPath(), StandardOpenOption.READ)) {
 			ObjectByteMapper obm = new ObjectByteMapper();
-			obm.readObject(header, buffer);
+			obm.readObject(header, readHeader(in, 0));
+			Check.condition(channel < getNumChannels(), "Channel not found: " + channel);
+
+			if (channel > 0) {
+				// each channel has its own header, layout
+				// of the file is defined by the first one
+				DztHeader channelHeader = new DztHeader();
+				obm.readObject(channelHeader, readHeader(in, (long)channel * getHeaderSize()));
+				channelHeader.rh_data = header.rh_data;
+				channelHeader.rh_nchan = header.rh_nchan;
+				channelHeader.rh_bits = header.rh_bits;
+				channelHeader.rh_nsamp = header.rh_nsamp;
+				header = channelHeader;
+			}
 			logHeader();
+		}
+		Check.notNull(getSampleCodec(), "Unsupported sample size: " + header.rh_bits);
 
-			channel.position(getDataPosition());
-			traces = readTraces(channel, getSampleCodec());
+		// coordinates are read from dzg, cache keeps
+		// samples with the average subtracted
+		TraceCacheFile traceCache = openTraceCache();
+		if (traceCache != null && traceCache.getParameters().length != 1) {
+			traceCache = null;
 		}
+		DztSampleSource source = traceCache == null
+				? openSampleSource(file)
+				: null;
+		List<Trace> traces = source != null
+				? readTraces(source, getSamplePageCache())
+				: readTraces(traceCache, getSamplePageCache());
 		Check.notEmpty(traces, "Corrupted file");
 
 		loadMeta(traces);
 
-		subtractAverage(traces);
+		if (source != null) {
+			// average is kept in the meta, so that the samples
+			// are not read in full each time the file is opened
+			Float metaSampleAvg = metaFile.getSampleAvg();
+			sampleAvg = metaSampleAvg != null
+					? metaSampleAvg
+					: computeAverage(source, Traces.getSampleStore(traces));
+			subtractAverage(traces);
+		}
+		metaFile.setSampleAvg((float)sampleAvg);
 		setTraces(traces);
 
 		updateTraces();
 		copyMarkedTracesToAuxElements();
 		updateTraceDistances();
 
+		if (traceCache == null) {
+			saveTraceCache(new float[] {(float)sampleAvg});
+		}
+
 		setUnsaved(false);
 	}
 
-	private ByteBuffer readHeader(SeekableByteChannel channel) throws IOException {
+	private ByteBuffer readHeader(SeekableByteChannel channel, long position) throws IOException {
 		ByteBuffer buffer = ByteBuffer
-				.allocate(1024)
+				.allocate(MINHEADSIZE)
 				.order(ByteOrder.LITTLE_ENDIAN);
-		channel.position(0);
+		channel.position(position);
 		channel.read(buffer);
 		return buffer;
 	}
 
 	private void logHeader() {
 		log.debug("| rh_data        {}", header.rh_data);
+		log.debug("| rh_nchan       {}", header.rh_nchan);
 		log.debug("| rh_bits        {}", header.rh_bits);
 		log.debug("| rh_nsamp       {}", header.rh_nsamp);
 		log.debug("| rh_zero        {}", header.rh_zero);
@@ -132,9 +216,18 @@ public class DztFile extends TraceFile {
 	}
 
 	private int getDataPosition() {
+		return getDataPosition(header.rh_nchan);
+	}
+
+	private int getDataPosition(int numChannels) {
 		return header.rh_data < MINHEADSIZE
 				? MINHEADSIZE * header.rh_data
-				: header.rh_nchan * header.rh_data;
+				: numChannels * header.rh_data;
+	}
+
+	// size of the header of a channel
+	private int getHeaderSize() {
+		return Math.max(MINHEADSIZE, header.rh_data);
 	}
 
 	private SampleCodec getSampleCodec() {
@@ -151,47 +244,71 @@ public class DztFile extends TraceFile {
 		return Math.max(0, header.rh_nsamp - 1);
 	}
 
-	private List<Trace> readTraces(SeekableByteChannel channel, SampleCodec sampleCodec)
-			throws IOException {
-
-		List<Trace> traces = new ArrayList<>();
-		int traceIndex = 0;
+	private DztSampleSource openSampleSource(File file) throws IOException {
+		int numSamples = numSamplesPerTrace();
+		return DztSampleSource.open(file, getDataPosition(),
+				getNumChannels(), channel, getTraceBufferSize(numSamples),
+				numSamples, getSampleCodec());
+	}
 
-		while (channel.position() < channel.size()) {
-			Trace trace = readTrace(channel, sampleCodec, traceIndex++);
-			traces.add(trace);
+	/**
+	 * Reads traces of the channel from the mapped file. When page
+	 * cache is set, samples are loaded on demand, otherwise all
+	 * samples are read into a flat store.
+	 */
+	private List<Trace> readTraces(DztSampleSource source,
+			@Nullable SamplePageCache samplePageCache) {
+		SampleStore store = samplePageCache != null
+				? new PagedSampleStore(source, samplePageCache)
+				: FlatSampleStore.load(source);
+
+		int numTraces = source.numTraces();
+		List<Trace> traces = new ArrayList<>(numTraces);
+		for (int i = 0; i < numTraces; i++) {
+			// scan index is the same for all channels
+			LatLon latLon = dzg.getLatLon(i);
+			traces.add(new Trace(null, store, i, latLon));
 		}
 		return traces;
 	}
 
-	private Trace readTrace(SeekableByteChannel channel, SampleCodec sampleCodec, int traceIndex)
-			throws IOException {
-
-		int numSamples = numSamplesPerTrace();
-
-		ByteBuffer buffer = ByteBuffer
-				.allocate(getTraceBufferSize(numSamples))
-				.order(ByteOrder.LITTLE_ENDIAN);
-		channel.read(buffer);
-		buffer.position(0);
+	// average over all samples of the channel
+	private static double computeAverage(DztSampleSource source, @Nullable SampleStore store) {
+		int numTraces = source.numTraces();
+		int numSamples = numTraces > 0 ? source.numSamples(0) : 0;
 
-		if (buffer.position() < buffer.capacity()) {
-			// read trace number
-			int traceNumber = sampleCodec.read(buffer);
+		double sum = 0;
+		float[] buffer = new float[numSamples];
+		for (int i = 0; i < numTraces; i++) {
+			if (store instanceof FlatSampleStore) {
+				for (int j = 0; j < numSamples; j++) {
+					sum += store.getSample(i, j);
+				}
+			} else {
+				// single pass over the source, bypassing the cache
+				source.read(i, buffer, 0);
+				for (float sample : buffer) {
+					sum += sample;
+				}
+			}
 		}
+		long count = (long)numTraces * numSamples;
+		return count > 0 ? sum / count : 0;
+	}
 
-		float[] samples = new float[numSamples];
-		int sampleIndex = 0;
-		sampleAvg = new MinMaxAvg();
-
-		while (buffer.position() < buffer.capacity() && sampleIndex < samples.length) {
-			int sample = sampleCodec.read(buffer);
-			samples[sampleIndex++] = sample;
-			sampleAvg.put(sample);
+	private List<Trace> readTraces(TraceCacheFile traceCache,
+			@Nullable SamplePageCache samplePageCache) {
+		SampleStore store = samplePageCache != null
+				? new PagedSampleStore(traceCache, samplePageCache)
+				: FlatSampleStore.load(traceCache);
+		sampleAvg = traceCache.getParameters()[0];
+
+		int numTraces = traceCache.numTraces();
+		List<Trace> traces = new ArrayList<>(numTraces);
+		for (int i = 0; i < numTraces; i++) {
+			traces.add(new Trace(null, store, i, dzg.getLatLon(i)));
 		}
-
-		LatLon latLon = dzg.getLatLon(traceIndex);
-		return new Trace(null, null, samples, latLon);
+		return traces;
 	}
 
 	@Override
@@ -221,6 +338,11 @@ public class DztFile extends TraceFile {
 		headerBuffer.putShort((short)(numSamples + 1));
 		headerBuffer.position(0);
 
+		// single channel is written
+		if (getNumChannels() > 1) {
+			headerBuffer.putShort(NCHAN_POS, (short)1);
+		}
+
 		try (FileOutputStream out = new FileOutputStream(file);
 			 FileChannel channel = out.getChannel()) {
 
@@ -235,14 +357,15 @@ public class DztFile extends TraceFile {
 			int from = range.getMin().intValue();
 			int to = range.getMax().intValue() + 1; // exclusive
 
+			ByteBuffer buffer = ByteBuffer
+					.allocate(getTraceBufferSize(numSamples))
+					.order(ByteOrder.LITTLE_ENDIAN);
+
 			for (int i = from; i < to; i++) {
 				Trace trace = fileTraces.get(i);
 				Check.condition(numSamples == trace.numSamples());
 
-				ByteBuffer buffer = ByteBuffer
-						.allocate(getTraceBufferSize(numSamples))
-						.order(ByteOrder.LITTLE_ENDIAN);
-				buffer.position(0);
+				buffer.clear();
 
 				sampleCodec.write(buffer, trace.getIndex());
 				for (int j = 0; j < numSamples; j++) {
@@ -262,15 +385,21 @@ public class DztFile extends TraceFile {
 	private ByteBuffer readSourceHeader() throws IOException {
 		Check.notNull(sourceFile);
 
+		// single channel is written
 		ByteBuffer buffer = ByteBuffer
-				.allocate(getDataPosition())
+				.allocate(getDataPosition(1))
 				.order(ByteOrder.LITTLE_ENDIAN);
 
 		try (FileInputStream in = new FileInputStream(sourceFile);
 			 FileChannel channel = in.getChannel()) {
-			channel.position(0);
-			channel.read(buffer);
+			channel.read(buffer, 0);
+			if (this.channel > 0) {
+				// header of the channel replaces the first one
+				int headerSize = Math.min(getHeaderSize(), buffer.capacity());
+				channel.read(buffer.slice(0, headerSize), (long)this.channel * getHeaderSize());
+			}
 		}
+		buffer.clear();
 		return buffer;
 	}
 
@@ -304,11 +433,12 @@ public class DztFile extends TraceFile {
 
 	@Override
 	public DztFile copy() {
-		DztFile copy = new DztFile();
+		DztFile copy = new DztFile(channel);
 		copy.header = this.header;
 		copy.sampleAvg = this.sampleAvg;
 		copy.sourceFile = this.sourceFile;
 		copy.dzg = this.dzg;
+		copy.setSamplePageCache(getSamplePageCache());
 
 		copy.setFile(getFile());
 		copy.setUnsaved(isUnsaved());
@@ -329,7 +459,13 @@ public class DztFile extends TraceFile {
 	}
 
 	public void subtractAverage(List<Trace> traces) {
-		float avg = (float) sampleAvg.getAvg();
+		float avg = (float) sampleAvg;
+
+		SampleStore store = Traces.getSampleStore(traces);
+		if (store != null) {
+			store.transform(1f, -avg);
+			return;
+		}
 
 		for (Trace trace : traces) {
 			for (int i = 0; i < trace.numSamples(); i++) {
@@ -340,7 +476,13 @@ public class DztFile extends TraceFile {
 	}
 
 	public void addAverage(List<Trace> traces) {
-		float avg = (float) sampleAvg.getAvg();
+		float avg = (float) sampleAvg;
+
+		SampleStore store = Traces.getSampleStore(traces);
+		if (store != null) {
+			store.transform(1f, avg);
+			return;
+		}
 
 		for (Trace trace : traces) {
 			for (int i = 0; i < trace.numSamples(); i++) {
@@ -364,6 +506,13 @@ public class DztFile extends TraceFile {
 
 		int read(ByteBuffer buffer);
 
+		/**
+		 * Reads up to length values into dst starting at the offset;
+		 * buffer must be little-endian.
+		 * @return number of values read
+		 */
+		int read(ByteBuffer buffer, float[] dst, int offset, int length);
+
 		void write(ByteBuffer buffer, int value);
 	}
 
@@ -374,6 +523,17 @@ public class DztFile extends TraceFile {
 			return asUnsignedShort(buffer.getShort()) - 32767;
 		}
 
+		@Override
+		public int read(ByteBuffer buffer, float[] dst, int offset, int length) {
+			ShortBuffer values = buffer.asShortBuffer();
+			int n = Math.min(length, values.remaining());
+			for (int i = 0; i < n; i++) {
+				dst[offset + i] = asUnsignedShort(values.get(i)) - 32767;
+			}
+			buffer.position(buffer.position() + 2 * n);
+			return n;
+		}
+
 		@Override
 		public void write(ByteBuffer buffer, int value) {
 			int v = value +  32767;
@@ -392,6 +552,17 @@ public class DztFile extends TraceFile {
 			return buffer.getInt();
 		}
 
+		@Override
+		public int read(ByteBuffer buffer, float[] dst, int offset, int length) {
+			IntBuffer values = buffer.asIntBuffer();
+			int n = Math.min(length, values.remaining());
+			for (int i = 0; i < n; i++) {
+				dst[offset + i] = values.get(i);
+			}
+			buffer.position(buffer.position() + 4 * n);
+			return n;
+		}
+
 		@Override
 		public void write(ByteBuffer buffer, int value) {
 			buffer.putInt(value);
@@ -0,0 +1,128 @@
+package com.ugcs.gprvisualizer.dzt;
+
+import com.github.thecoldwine.sigrun.common.ext.SampleSource;
+import com.ugcs.gprvisualizer.utils.Check;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sample source over memory-mapped DZT trace data of a single channel.
+ * Scans have a fixed size and hold one trace per channel, one after
+ * another; file is mapped in segments holding a whole number of scans.
+ */
+class DztSampleSource implements SampleSource {
+
+    private static final long MAX_SEGMENT_SIZE = 1L << 30;
+
+    private final MappedByteBuffer[] segments;
+
+    private final int scanSize;
+
+    private final int scansPerSegment;
+
+    // offset of the channel trace in a scan
+    private final int channelOffset;
+
+    private final int traceSize;
+
+    private final int numTraces;
+
+    private final int numSamples;
+
+    private final DztFile.SampleCodec sampleCodec;
+
+    private DztSampleSource(MappedByteBuffer[] segments, int scanSize, int scansPerSegment,
+            int channelOffset, int traceSize, int numTraces, int numSamples,
+            DztFile.SampleCodec sampleCodec) {
+        this.segments = segments;
+        this.scanSize = scanSize;
+        this.scansPerSegment = scansPerSegment;
+        this.channelOffset = channelOffset;
+        this.traceSize = traceSize;
+        this.numTraces = numTraces;
+        this.numSamples = numSamples;
+        this.sampleCodec = sampleCodec;
+    }
+
+    /**
+     * @param dataPosition offset of the first scan
+     * @param numChannels number of channel traces in a scan
+     * @param channel index of the channel to read
+     * @param traceSize size of the trace in bytes, including trace index
+     * @param numSamples number of samples per trace, excluding trace index
+     */
+    static DztSampleSource open(File file, long dataPosition, int numChannels, int channel,
+            int traceSize, int numSamples, DztFile.SampleCodec sampleCodec) throws IOException {
+        Check.notNull(file);
+        Check.condition(traceSize > 0);
+        Check.condition(numChannels > 0);
+        Check.indexInBounds(channel, numChannels);
+
+        int scanSize = numChannels * traceSize;
+        int channelOffset = channel * traceSize;
+
+        try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = fileChannel.size();
+            long dataSize = Math.max(0, size - dataPosition);
+            // last scan may be incomplete, channel trace
+            // is kept when at least partially present
+            int numTraces = (int)(dataSize / scanSize);
+            if (dataSize % scanSize > channelOffset) {
+                numTraces++;
+            }
+
+            int scansPerSegment = (int)Math.max(1, MAX_SEGMENT_SIZE / scanSize);
+            int numSegments = (numTraces + scansPerSegment - 1) / scansPerSegment;
+            MappedByteBuffer[] segments = new MappedByteBuffer[numSegments];
+            for (int i = 0; i < numSegments; i++) {
+                long start = dataPosition + (long)i * scansPerSegment * scanSize;
+                long length = Math.min((long)scansPerSegment * scanSize, size - start);
+                segments[i] = fileChannel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            }
+            // mappings stay valid after the channel is closed
+            return new DztSampleSource(segments, scanSize, scansPerSegment,
+                    channelOffset, traceSize, numTraces, numSamples, sampleCodec);
+        }
+    }
+
+    @Override
+    public int numTraces() {
+        return numTraces;
+    }
+
+    @Override
+    public int numSamples(int trace) {
+        return numSamples;
+    }
+
+    @Override
+    public void read(int trace, float[] dst, int offset) {
+        Check.indexInBounds(trace, numTraces);
+
+        MappedByteBuffer segment = segments[trace / scansPerSegment];
+        int position = (trace % scansPerSegment) * scanSize + channelOffset;
+        int length = Math.min(traceSize, segment.limit() - position);
+
+        ByteBuffer buffer;
+        if (length == traceSize) {
+            buffer = segment.slice(position, length);
+        } else {
+            // incomplete trace is padded with zeros
+            byte[] bytes = new byte[traceSize];
+            segment.get(position, bytes, 0, length);
+            buffer = ByteBuffer.wrap(bytes);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        // skip trace number
+        sampleCodec.read(buffer);
+
+        sampleCodec.read(buffer, dst, offset, Math.min(numSamples, dst.length - offset));
+    }
+}
@@ -1,8 +1,8 @@
 package com.ugcs.gprvisualizer.gpr;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.IntStream;
 
 import com.github.thecoldwine.sigrun.common.ext.Trace;
 import com.github.thecoldwine.sigrun.common.ext.TraceFile;
@@ -31,26 +31,45 @@ public class MedianScaleBuilder implements ArrayBuilder {
 		List<Trace> traces = file.getTraces();
 		var maxHeightInSamples = model.getGprChart(file).getField().getMaxHeightInSamples();
 
+		// absolute edge values of the sample layers,
+		// collected in a single pass over the traces
+		float[][] layers = new float[maxHeightInSamples][16];
+		int[] layerSizes = new int[maxHeightInSamples];
+
+		float[] samples = new float[0];
+		for (Trace trace : traces) {
+			int numSamples = Math.min(trace.numSamples(), maxHeightInSamples);
+			if (samples.length < trace.numSamples()) {
+				samples = new float[trace.numSamples()];
+			}
+			trace.getSamples(samples, 0);
+			for (int smp = 0; smp < numSamples; smp++) {
+				if (trace.getEdge(smp) >= 3) {
+					float[] layer = layers[smp];
+					int size = layerSizes[smp];
+					if (size == layer.length) {
+						layer = Arrays.copyOf(layer, 2 * size);
+						layers[smp] = layer;
+					}
+					layer[size] = Math.abs(samples[smp]);
+					layerSizes[smp] = size + 1;
+				}
+			}
+		}
+
 		double[][] underconstruction = new double[2][maxHeightInSamples];
-		
-		for (int smp = 0; smp < maxHeightInSamples; smp++) {
 
-			//all edge values of sample layer
-			List<Float> all = new ArrayList<>();
+		IntStream.range(0, maxHeightInSamples).parallel().forEach(smp -> {
+			float[] all = layers[smp];
+			int size = layerSizes[smp];
 
-            for (Trace trace : traces) {
-                if (trace.getEdge(smp) >= 3) {
-                    all.add(Math.abs(smp < trace.numSamples() ? trace.getSample(smp) : 0));
-                }
-            }
-			
-			if (all.isEmpty()) {
+			if (size == 0) {
 				underconstruction[0][smp] = 0;
 				underconstruction[1][smp] = 100 / 1000;
 			} else {
-				Collections.sort(all);
-				float median = all.get(all.size() * 35 / 70);
-				float principal95 = all.get(all.size() * 98 / 100);
+				Arrays.sort(all, 0, size);
+				float median = all[size * 35 / 70];
+				float principal95 = all[size * 98 / 100];
 	
 				//threshold
 				underconstruction[0][smp] = median;
@@ -58,7 +77,7 @@ public class MedianScaleBuilder implements ArrayBuilder {
 				underconstruction[1][smp] = 
 						100 / Math.max(0.5, principal95 - median);
 			}
-		}
+		});
 		
 		scale = underconstruction;
 		
@@ -19,5 +19,70 @@ public class ArrayMath {
 		}
 	}
 
+	/**
+	 * Returns median of the values in range [from, to), for an even
+	 * number of values it is the mean of the two middle values.
+	 * Values in the range are reordered.
+	 */
+	public static double median(double[] values, int from, int to) {
+		int size = to - from;
+		if (size <= 0) {
+			return Double.NaN;
+		}
+		int k = from + size / 2;
+		select(values, from, to - 1, k);
+		double upper = values[k];
+		if (size % 2 == 1) {
+			return upper;
+		}
+		// values before k are not greater than the k-th one
+		double lower = values[from];
+		for (int i = from + 1; i < k; i++) {
+			lower = Math.max(lower, values[i]);
+		}
+		return (lower + upper) / 2.0;
+	}
+
+	/**
+	 * Quickselect: reorders values in range [left, right] so that
+	 * k-th value is in its sorted position, values before it are
+	 * not greater and values after it are not less.
+	 */
+	private static void select(double[] values, int left, int right, int k) {
+		while (right > left) {
+			int mid = (left + right) >>> 1;
+			double pivot = medianOf3(values[left], values[mid], values[right]);
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (values[i] < pivot) {
+					i++;
+				}
+				while (values[j] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					double tmp = values[i];
+					values[i] = values[j];
+					values[j] = tmp;
+					i++;
+					j--;
+				}
+			}
+			if (k <= j) {
+				right = j;
+			} else if (k >= i) {
+				left = i;
+			} else {
+				// values between j and i are equal to pivot
+				return;
+			}
+		}
+	}
+
+	private static double medianOf3(double a, double b, double c) {
+		return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+	}
+
 
 }
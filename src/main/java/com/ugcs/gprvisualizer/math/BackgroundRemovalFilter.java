@@ -16,24 +16,33 @@ public class BackgroundRemovalFilter {
 	}
 
 	public void subtractProfile(List<Trace> lst, float[] avg) {
-        for (Trace trace : lst) {
-            int n = Math.min(avg.length, trace.numSamples());
+		float[] samples = new float[0];
+		for (Trace trace : lst) {
+			if (samples.length < trace.numSamples()) {
+				samples = new float[trace.numSamples()];
+			}
+			trace.getSamples(samples, 0);
+			int n = Math.min(avg.length, trace.numSamples());
 			for (int i = 0; i < n; i++) {
-				float value = trace.getSample(i) - avg[i];
-				trace.setSample(i, value);
+				trace.setSample(i, samples[i] - avg[i]);
 			}
-        }
+		}
 	}
 
 	public float[] prepareNoiseProfile(List<Trace> lst, int deep) {
 		float[] avg = new float[deep];
 
-        for (Trace trace : lst) {
-            int n = Math.min(avg.length, trace.numSamples());
-            for (int i = 0; i < n; i++) {
-                avg[i] += trace.getSample(i);
-            }
-        }
+		float[] samples = new float[0];
+		for (Trace trace : lst) {
+			if (samples.length < trace.numSamples()) {
+				samples = new float[trace.numSamples()];
+			}
+			trace.getSamples(samples, 0);
+			int n = Math.min(avg.length, trace.numSamples());
+			for (int i = 0; i < n; i++) {
+				avg[i] += samples[i];
+			}
+		}
 
 		ArrayMath.arrayDiv(avg, lst.size());
 		return avg;
@@ -0,0 +1,135 @@
+package com.ugcs.gprvisualizer.math;
+
+import com.ugcs.gprvisualizer.utils.Check;
+
+import java.util.stream.IntStream;
+
+/**
+ * Euclidean distance transform of a binary grid in linear time.
+ * <p>
+ * Squared distances to the nearest feature cell are computed by two
+ * passes of the 1D transform of Felzenszwalb and Huttenlocher: along
+ * the rows and then along the columns, taking the lower envelope of
+ * parabolas rooted at the cells. Cost does not depend on the distances.
+ * Rows and columns within a pass are processed in parallel.
+ */
+public final class DistanceTransform {
+
+    private DistanceTransform() {
+    }
+
+    /**
+     * Returns squared distances in cells from each cell of the grid
+     * to the nearest feature cell, or infinity when there are no
+     * feature cells.
+     *
+     * @param features flags of the feature cells, indexed as [x][y]
+     */
+    public static float[][] squaredDistances(boolean[][] features) {
+        Check.notNull(features);
+
+        int nx = features.length;
+        int ny = nx > 0 ? features[0].length : 0;
+        float[][] distances = new float[nx][ny];
+
+        // along y within each row
+        IntStream.range(0, nx).parallel().forEach(i -> {
+            boolean[] row = features[i];
+            float[] f = new float[ny];
+            for (int j = 0; j < ny; j++) {
+                f[j] = row[j] ? 0f : Float.POSITIVE_INFINITY;
+            }
+            transform(f, distances[i], new int[ny], new double[ny + 1]);
+        });
+
+        // along x within each column
+        IntStream.range(0, ny).parallel().forEach(j -> {
+            float[] f = new float[nx];
+            for (int i = 0; i < nx; i++) {
+                f[i] = distances[i][j];
+            }
+            float[] d = new float[nx];
+            transform(f, d, new int[nx], new double[nx + 1]);
+            for (int i = 0; i < nx; i++) {
+                distances[i][j] = d[i];
+            }
+        });
+        return distances;
+    }
+
+    /**
+     * Returns flags of the cells within the distance (in cells)
+     * from the nearest feature cell.
+     *
+     * @param features flags of the feature cells, indexed as [x][y]
+     * @param distance max distance in cells
+     */
+    public static boolean[][] withinDistance(boolean[][] features, double distance) {
+        float[][] distances = squaredDistances(features);
+        double distanceSq = distance * distance;
+
+        boolean[][] within = new boolean[distances.length][];
+        IntStream.range(0, distances.length).parallel().forEach(i -> {
+            float[] row = distances[i];
+            boolean[] withinRow = new boolean[row.length];
+            for (int j = 0; j < row.length; j++) {
+                withinRow[j] = row[j] <= distanceSq;
+            }
+            within[i] = withinRow;
+        });
+        return within;
+    }
+
+    /**
+     * 1D transform: d[q] = min over p of (q - p)^2 + f[p].
+     * Points with infinite f are not roots of the parabolas.
+     *
+     * @param v buffer for the parabola roots
+     * @param z buffer for the envelope boundaries
+     */
+    private static void transform(float[] f, float[] d, int[] v, double[] z) {
+        int n = f.length;
+        int k = -1;
+        for (int q = 0; q < n; q++) {
+            if (f[q] == Float.POSITIVE_INFINITY) {
+                continue;
+            }
+            if (k < 0) {
+                k = 0;
+                v[0] = q;
+                z[0] = Double.NEGATIVE_INFINITY;
+                z[1] = Double.POSITIVE_INFINITY;
+                continue;
+            }
+            double s = intersection(f, v[k], q);
+            while (s <= z[k]) {
+                k--;
+                s = intersection(f, v[k], q);
+            }
+            k++;
+            v[k] = q;
+            z[k] = s;
+            z[k + 1] = Double.POSITIVE_INFINITY;
+        }
+
+        if (k < 0) {
+            for (int q = 0; q < n; q++) {
+                d[q] = Float.POSITIVE_INFINITY;
+            }
+            return;
+        }
+        k = 0;
+        for (int q = 0; q < n; q++) {
+            while (z[k + 1] < q) {
+                k++;
+            }
+            int p = v[k];
+            d[q] = (float) ((double) (q - p) * (q - p) + f[p]);
+        }
+    }
+
+    // abscissa of the intersection of the parabolas rooted at p and q
+    private static double intersection(float[] f, int p, int q) {
+        return ((f[q] + (double) q * q) - (f[p] + (double) p * p)) / (2.0 * (q - p));
+    }
+}
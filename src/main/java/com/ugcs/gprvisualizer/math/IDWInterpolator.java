@@ -1,76 +1,64 @@
 package com.ugcs.gprvisualizer.math;
 
-import com.ugcs.gprvisualizer.draw.GridLayer;
-import org.junit.experimental.theories.DataPoint;
-import org.locationtech.jts.geom.Coordinate;
-import org.locationtech.jts.geom.Envelope;
-import org.locationtech.jts.index.kdtree.KdNode;
-import org.locationtech.jts.index.kdtree.KdTree;
+import com.ugcs.gprvisualizer.utils.Check;
 
-import java.util.List;
+import java.util.stream.IntStream;
 
 /**
- * High-performance Inverse Distance Weighting (IDW) interpolator optimized for GPR data visualization.
- * 
- * PERFORMANCE OPTIMIZATION RECOMMENDATIONS:
- * 
+ * Inverse Distance Weighting (IDW) interpolator optimized for GPR data visualization.
+ * <p>
+ * Value at a point is the weighted mean of the values of its k nearest
+ * known points, with weights 1 / distance^power. Nearest points are found
+ * on a compact {@link PointKdTree}, so that a query does not allocate
+ * and touches O(log n) tree nodes.
+ * <p>
+ * PERFORMANCE NOTES:
+ * <p>
  * 1. Optimal Parameter Ranges:
- *    - power: 2.0 to 3.0 (2.0 is fastest, higher values need more points)
- *    - minPoints: 4 to 8 (automatically limited to 12 for performance)
- *    - initialSearchRadius: 1.0 to 2.0 * cellSize
- *    - maxSearchRadius: 3.0 to 5.0 * cellSize
- * 
- * 2. Cell Size Selection:
- *    - Larger cells (>0.1) = faster interpolation
- *    - Smaller cells = better detail but slower
- *    - Recommended: Start with large cells, decrease if needed
- * 
- * 3. Performance Features:
- *    - Uses squared distances to avoid sqrt calculations
- *    - Caches power values for faster computation
- *    - Implements early termination for exact matches
- *    - Optimized search radius strategy
- *    - Limits maximum points used for interpolation
- * 
- * 4. Memory Usage:
- *    - KdTree structure for efficient spatial queries
- *    - Minimal memory overhead for caching
- *    - Adaptive search radius to minimize neighbor searches
- * 
- * This implementation balances accuracy and performance:
- * - Suitable for real-time visualization
- * - Handles large datasets efficiently
- * - Maintains accuracy while optimizing speed
+ *    - power: 2.0 to 3.0, integer powers avoid Math.pow
+ *    - minPoints: 4 to 8 (automatically limited to 12)
+ *    - maxSearchRadius: 3.0 to 5.0 * cellSize, or unbounded
+ *      when the grid is blanked by the distance to the data
+ * <p>
+ * 2. Grids are interpolated row by row in parallel,
+ *    see {@link #gridMissing(boolean[][], float[][])}.
  */
 public class IDWInterpolator {
-    private final KdTree kdTree;
-    private final double power;
-    private final int minPoints;
-    private final double maxSearchRadius;
-    private final double initialSearchRadius;
 
-    // Cache for squared power to avoid repeated calculations
-    private final double powerX2;
+    // Limit of the points used for interpolation
+    private static final int MAX_POINTS = 12;
+
     // Threshold for early termination when exact match is found
     private static final double EXACT_MATCH_THRESHOLD = 1e-10;
 
+    private final PointKdTree tree;
+    private final double power;
+    private final int minPoints;
+    private final double maxSearchRadius;
+
     /**
      * Creates a new IDW interpolator.
      *
-     * @param kdTree spatial index of known points
+     * @param tree spatial index of known points
      * @param power power parameter (typically 2)
-     * @param minPoints minimum number of points to use for interpolation
+     * @param minPoints number of nearest points to use for interpolation
      * @param maxSearchRadius maximum search radius
-     * @param initialSearchRadius initial search radius
      */
-    public IDWInterpolator(KdTree kdTree, double power, int minPoints, 
-                          double maxSearchRadius, double initialSearchRadius) {
-        this.kdTree = kdTree;
+    public IDWInterpolator(PointKdTree tree, double power, int minPoints, double maxSearchRadius) {
+        Check.notNull(tree);
+
+        this.tree = tree;
         this.power = power;
-        this.powerX2 = power * 2;  // Cache for optimization
-        this.minPoints = Math.min(minPoints, 12);  // Limit max points for performance
+        this.minPoints = Math.min(minPoints, MAX_POINTS);
         this.maxSearchRadius = maxSearchRadius;
-        this.initialSearchRadius = initialSearchRadius;
+    }
+
+    /**
+     * Creates a buffer for nearest points to pass to
+     * {@link #interpolate(double, double, PointKdTree.Neighbors)}.
+     */
+    public PointKdTree.Neighbors createNeighbors() {
+        return new PointKdTree.Neighbors(minPoints);
     }
 
     /**
@@ -81,51 +69,73 @@ public class IDWInterpolator {
      * @return interpolated value or NaN if no points found within search radius
      */
     public double interpolate(double x, double y) {
-        double searchRadius = initialSearchRadius;
-        List<KdNode> neighbors;
-
-        // Use more aggressive initial search with faster termination
-        Envelope searchEnv = new Envelope(
-            x - searchRadius, x + searchRadius,
-            y - searchRadius, y + searchRadius
-        );
-        neighbors = kdTree.query(searchEnv);
-
-        // If we don't have enough points, try one more larger radius
-        if (neighbors.size() < minPoints && searchRadius < maxSearchRadius) {
-            searchRadius = Math.min(searchRadius * 3, maxSearchRadius);
-            searchEnv = new Envelope(
-                x - searchRadius, x + searchRadius,
-                y - searchRadius, y + searchRadius
-            );
-            neighbors = kdTree.query(searchEnv);
-        }
+        return interpolate(x, y, createNeighbors());
+    }
 
-        if (neighbors.isEmpty()) {
+    /**
+     * Interpolates value at given point reusing the neighbors buffer,
+     * which should not be shared between threads.
+     */
+    public double interpolate(double x, double y, PointKdTree.Neighbors neighbors) {
+        tree.nearest(x, y, maxSearchRadius, neighbors);
+        if (neighbors.size() == 0) {
             return Double.NaN;
         }
 
         double weightSum = 0;
         double valueSum = 0;
-
-        for (KdNode node : neighbors) {
-            Coordinate coord = (Coordinate) node.getCoordinate();
-            // Use squared distance to avoid sqrt calculation
-            double dx = x - coord.x;
-            double dy = y - coord.y;
-            double distanceSq = dx * dx + dy * dy;
-
+        for (int i = 0; i < neighbors.size(); i++) {
+            int index = neighbors.index(i);
+            double distanceSq = neighbors.distanceSq(i);
             // Early return for exact matches
             if (distanceSq < EXACT_MATCH_THRESHOLD) {
-                return ((GridLayer.DataPoint) node.getData()).value();
+                return tree.getValue(index);
             }
-
-            // Use squared distance and cached power value for faster calculation
-            double weight = 1.0 / Math.pow(distanceSq, power/2);  // Equivalent to 1/distance^power but faster
+            double weight = weight(distanceSq);
             weightSum += weight;
-            valueSum += weight * ((GridLayer.DataPoint) node.getData()).value();
+            valueSum += weight * tree.getValue(index);
         }
-
         return valueSum / weightSum;
     }
+
+    /**
+     * Returns 1 / distance^power computed from the squared distance.
+     */
+    private double weight(double distanceSq) {
+        int intPower = (int) power;
+        if (intPower == power && intPower > 0) {
+            // distance^power as a product of squared distances
+            double d = intPower % 2 == 0 ? 1.0 : Math.sqrt(distanceSq);
+            for (int i = 0; i < intPower / 2; i++) {
+                d *= distanceSq;
+            }
+            return 1.0 / d;
+        }
+        return 1.0 / Math.pow(distanceSq, power / 2);
+    }
+
+    /**
+     * Interpolates missing values of the grid, where the tree is
+     * built in the grid index space: x is the row index and y is
+     * the column index. Rows are computed in parallel.
+     *
+     * @param missing flags of the grid values to interpolate
+     * @param grid grid values
+     */
+    public void gridMissing(boolean[][] missing, float[][] grid) {
+        Check.notNull(missing);
+        Check.notNull(grid);
+        Check.condition(missing.length == grid.length, "Mask and grid sizes differ");
+
+        IntStream.range(0, grid.length).parallel().forEach(i -> {
+            PointKdTree.Neighbors neighbors = createNeighbors();
+            boolean[] missingRow = missing[i];
+            float[] row = grid[i];
+            for (int j = 0; j < row.length; j++) {
+                if (missingRow[j]) {
+                    row[j] = (float) interpolate(i, j, neighbors);
+                }
+            }
+        });
+    }
 }
@@ -0,0 +1,337 @@
+package com.ugcs.gprvisualizer.math;
+
+import com.ugcs.gprvisualizer.utils.Check;
+
+import java.util.stream.IntStream;
+
+/**
+ * Minimum curvature gridder with tension for regularly sampled grids
+ * with missing values.
+ * <p>
+ * Missing values minimize (1 - t) |L f|^2 + t |D f|^2, where D is the
+ * finite difference gradient, L = D'D is the Laplacian with zero-flux
+ * boundaries and t is the tension. Known values are kept unchanged.
+ * The normal equations are solved by Jacobi-preconditioned conjugate
+ * gradients until the residual is reduced below the tolerance.
+ * <p>
+ * Solution starts on a coarse grid: known values are averaged in 2x2
+ * blocks down to a small grid, and each level solution interpolated
+ * to the next finer level is the initial guess for its iterations,
+ * so that the fine levels only refine local details. Operators and
+ * reductions are computed in parallel by rows.
+ */
+public class MinimumCurvatureGridder {
+
+    // coarsening stops when the grid is smaller than this in any dimension
+    private static final int MIN_COARSE_SIZE = 16;
+
+    private float tension = 0f;
+
+    private double tolerance = 1e-4;
+
+    private int maxIterations = 1000;
+
+    private int iterationCount;
+
+    public float getTension() {
+        return tension;
+    }
+
+    /**
+     * Sets tension in range [0, 1): 0 gives minimum curvature
+     * surface, values close to 1 reduce overshoots between
+     * the known values.
+     */
+    public void setTension(float tension) {
+        Check.condition(tension >= 0f && tension < 1f, "Tension should be in range [0, 1)");
+        this.tension = tension;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * Sets convergence tolerance as a ratio of the residual norm
+     * to the norm of the right-hand side of the equations.
+     */
+    public void setTolerance(double tolerance) {
+        Check.condition(tolerance > 0, "Tolerance should be positive");
+        this.tolerance = tolerance;
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * Sets limit of iterations per grid level.
+     */
+    public void setMaxIterations(int maxIterations) {
+        Check.condition(maxIterations > 0, "Max iterations should be positive");
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Number of iterations made on the finest level
+     * by the last {@link #gridMissing(boolean[][], float[][])} call.
+     */
+    public int getIterationCount() {
+        return iterationCount;
+    }
+
+    /**
+     * Replaces missing values of the grid.
+     *
+     * @param missing flags of the missing values
+     * @param grid grid values, indexed as grid[x][y]
+     */
+    public void gridMissing(boolean[][] missing, float[][] grid) {
+        Check.notNull(missing);
+        Check.notNull(grid);
+        Check.condition(missing.length == grid.length, "Mask and grid sizes differ");
+
+        iterationCount = 0;
+        int nx = grid.length;
+        int ny = nx > 0 ? grid[0].length : 0;
+        if (nx == 0 || ny == 0) {
+            return;
+        }
+
+        float[] f = new float[nx * ny];
+        boolean[] known = new boolean[nx * ny];
+        for (int i = 0; i < nx; i++) {
+            Check.condition(grid[i].length == ny && missing[i].length == ny,
+                    "Grid rows differ in length");
+            for (int j = 0; j < ny; j++) {
+                f[i * ny + j] = grid[i][j];
+                known[i * ny + j] = !missing[i][j];
+            }
+        }
+
+        iterationCount = solve(f, known, nx, ny);
+
+        for (int i = 0; i < nx; i++) {
+            for (int j = 0; j < ny; j++) {
+                if (missing[i][j]) {
+                    grid[i][j] = f[i * ny + j];
+                }
+            }
+        }
+    }
+
+    private int solve(float[] f, boolean[] known, int nx, int ny) {
+        int numKnown = 0;
+        double sum = 0;
+        for (int k = 0; k < f.length; k++) {
+            if (known[k]) {
+                numKnown++;
+                sum += f[k];
+            }
+        }
+        if (numKnown == 0 || numKnown == f.length) {
+            return 0;
+        }
+
+        if (nx >= 2 * MIN_COARSE_SIZE && ny >= 2 * MIN_COARSE_SIZE) {
+            int cnx = (nx + 1) / 2;
+            int cny = (ny + 1) / 2;
+            float[] coarse = new float[cnx * cny];
+            boolean[] coarseKnown = new boolean[cnx * cny];
+            restrict(f, known, nx, ny, coarse, coarseKnown, cnx, cny);
+            solve(coarse, coarseKnown, cnx, cny);
+            prolongate(coarse, cnx, cny, f, known, nx, ny);
+        } else {
+            float mean = (float) (sum / numKnown);
+            for (int k = 0; k < f.length; k++) {
+                if (!known[k]) {
+                    f[k] = mean;
+                }
+            }
+        }
+        return conjugateGradients(f, known, nx, ny);
+    }
+
+    /**
+     * Averages known values in 2x2 blocks.
+     */
+    private static void restrict(float[] f, boolean[] known, int nx, int ny,
+            float[] coarse, boolean[] coarseKnown, int cnx, int cny) {
+        IntStream.range(0, cnx).parallel().forEach(ci -> {
+            for (int cj = 0; cj < cny; cj++) {
+                double sum = 0;
+                int count = 0;
+                for (int i = 2 * ci; i < Math.min(2 * ci + 2, nx); i++) {
+                    for (int j = 2 * cj; j < Math.min(2 * cj + 2, ny); j++) {
+                        int k = i * ny + j;
+                        if (known[k]) {
+                            sum += f[k];
+                            count++;
+                        }
+                    }
+                }
+                int ck = ci * cny + cj;
+                coarseKnown[ck] = count > 0;
+                coarse[ck] = count > 0 ? (float) (sum / count) : 0f;
+            }
+        });
+    }
+
+    /**
+     * Bilinearly interpolates coarse grid to the missing values
+     * of the fine grid. Coarse cell centers are at the centers
+     * of the 2x2 fine blocks.
+     */
+    private static void prolongate(float[] coarse, int cnx, int cny,
+            float[] f, boolean[] known, int nx, int ny) {
+        IntStream.range(0, nx).parallel().forEach(i -> {
+            double x = Math.clamp((i - 0.5) / 2, 0, cnx - 1);
+            int i0 = (int) x;
+            int i1 = Math.min(i0 + 1, cnx - 1);
+            double wx = x - i0;
+            for (int j = 0; j < ny; j++) {
+                int k = i * ny + j;
+                if (known[k]) {
+                    continue;
+                }
+                double y = Math.clamp((j - 0.5) / 2, 0, cny - 1);
+                int j0 = (int) y;
+                int j1 = Math.min(j0 + 1, cny - 1);
+                double wy = y - j0;
+                double v0 = coarse[i0 * cny + j0] * (1 - wy) + coarse[i0 * cny + j1] * wy;
+                double v1 = coarse[i1 * cny + j0] * (1 - wy) + coarse[i1 * cny + j1] * wy;
+                f[k] = (float) (v0 * (1 - wx) + v1 * wx);
+            }
+        });
+    }
+
+    private int conjugateGradients(float[] f, boolean[] known, int nx, int ny) {
+        int n = nx * ny;
+        float[] r = new float[n];
+        float[] z = new float[n];
+        float[] p = new float[n];
+        float[] q = new float[n];
+        float[] tmp = new float[n];
+        float[] inverseDiagonal = inverseDiagonal(nx, ny);
+
+        // right-hand side: operator applied to the known values
+        float[] b = new float[n];
+        for (int k = 0; k < n; k++) {
+            b[k] = known[k] ? f[k] : 0f;
+        }
+        apply(b, b, tmp, known, nx, ny);
+        double bNorm = Math.sqrt(dot(b, b, nx, ny));
+        double threshold = tolerance * bNorm;
+
+        // r = -A f on missing values
+        apply(f, r, tmp, known, nx, ny);
+        IntStream.range(0, nx).parallel().forEach(i -> {
+            for (int k = i * ny; k < (i + 1) * ny; k++) {
+                r[k] = -r[k];
+                z[k] = r[k] * inverseDiagonal[k];
+                p[k] = z[k];
+            }
+        });
+        double rz = dot(r, z, nx, ny);
+
+        int iteration = 0;
+        while (iteration < maxIterations) {
+            if (Math.sqrt(dot(r, r, nx, ny)) <= threshold) {
+                break;
+            }
+            apply(p, q, tmp, known, nx, ny);
+            double pq = dot(p, q, nx, ny);
+            if (pq <= 0) {
+                break;
+            }
+            float alpha = (float) (rz / pq);
+            IntStream.range(0, nx).parallel().forEach(i -> {
+                for (int k = i * ny; k < (i + 1) * ny; k++) {
+                    f[k] += alpha * p[k];
+                    r[k] -= alpha * q[k];
+                    z[k] = r[k] * inverseDiagonal[k];
+                }
+            });
+            double rzNext = dot(r, z, nx, ny);
+            float beta = (float) (rzNext / rz);
+            rz = rzNext;
+            IntStream.range(0, nx).parallel().forEach(i -> {
+                for (int k = i * ny; k < (i + 1) * ny; k++) {
+                    p[k] = z[k] + beta * p[k];
+                }
+            });
+            iteration++;
+        }
+        return iteration;
+    }
+
+    /**
+     * Applies operator (1 - t) L'L + t D'D to x, zeroing
+     * the result at the known values.
+     */
+    private void apply(float[] x, float[] out, float[] tmp, boolean[] known, int nx, int ny) {
+        float t = tension;
+        IntStream.range(0, nx).parallel().forEach(i -> laplacian(x, tmp, i, nx, ny));
+        IntStream.range(0, nx).parallel().forEach(i -> {
+            laplacian(tmp, out, i, nx, ny);
+            for (int k = i * ny; k < (i + 1) * ny; k++) {
+                out[k] = known[k] ? 0f : (1 - t) * out[k] + t * tmp[k];
+            }
+        });
+    }
+
+    /**
+     * Row of the negative Laplacian D'D x with zero-flux boundaries:
+     * sum of the differences to the neighbors inside the grid.
+     */
+    private static void laplacian(float[] x, float[] out, int i, int nx, int ny) {
+        int row = i * ny;
+        for (int j = 0; j < ny; j++) {
+            int k = row + j;
+            float c = x[k];
+            float sum = 0f;
+            if (i > 0) {
+                sum += c - x[k - ny];
+            }
+            if (i < nx - 1) {
+                sum += c - x[k + ny];
+            }
+            if (j > 0) {
+                sum += c - x[k - 1];
+            }
+            if (j < ny - 1) {
+                sum += c - x[k + 1];
+            }
+            out[k] = sum;
+        }
+    }
+
+    /**
+     * Jacobi preconditioner: diagonal of (1 - t) L'L + t D'D
+     * is (1 - t) (d^2 + d) + t d, where d is the number of
+     * neighbors of a cell inside the grid.
+     */
+    private float[] inverseDiagonal(int nx, int ny) {
+        float t = tension;
+        float[] inverseDiagonal = new float[nx * ny];
+        for (int i = 0; i < nx; i++) {
+            for (int j = 0; j < ny; j++) {
+                int d = (i > 0 ? 1 : 0) + (i < nx - 1 ? 1 : 0)
+                        + (j > 0 ? 1 : 0) + (j < ny - 1 ? 1 : 0);
+                float diagonal = (1 - t) * (d * d + d) + t * d;
+                inverseDiagonal[i * ny + j] = diagonal > 0 ? 1f / diagonal : 0f;
+            }
+        }
+        return inverseDiagonal;
+    }
+
+    private static double dot(float[] a, float[] b, int nx, int ny) {
+        return IntStream.range(0, nx).parallel().mapToDouble(i -> {
+            double sum = 0;
+            for (int k = i * ny; k < (i + 1) * ny; k++) {
+                sum += (double) a[k] * b[k];
+            }
+            return sum;
+        }).sum();
+    }
+}
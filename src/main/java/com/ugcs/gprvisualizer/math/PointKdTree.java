@@ -0,0 +1,251 @@
+package com.ugcs.gprvisualizer.math;
+
+import com.ugcs.gprvisualizer.utils.Check;
+
+/**
+ * Static 2D KD-tree of valued points stored in primitive arrays.
+ * <p>
+ * The tree is implicit: points are reordered so that the node of
+ * a range [from, to) is its middle element, which splits the range
+ * by the axis stored for the node. The tree is immutable after
+ * construction and can be queried from multiple threads, each
+ * thread using its own {@link Neighbors} buffer.
+ */
+public final class PointKdTree {
+
+    private static final byte AXIS_X = 0;
+    private static final byte AXIS_Y = 1;
+
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] values;
+    private final byte[] axes;
+
+    public PointKdTree(double[] xs, double[] ys, double[] values) {
+        Check.notNull(xs);
+        Check.notNull(ys);
+        Check.notNull(values);
+        Check.condition(xs.length == ys.length && xs.length == values.length,
+                "Coordinate and value arrays differ in length");
+
+        this.xs = xs.clone();
+        this.ys = ys.clone();
+        this.values = values.clone();
+        this.axes = new byte[xs.length];
+        build(0, xs.length);
+    }
+
+    public int size() {
+        return xs.length;
+    }
+
+    public double getX(int index) {
+        return xs[index];
+    }
+
+    public double getY(int index) {
+        return ys[index];
+    }
+
+    public double getValue(int index) {
+        return values[index];
+    }
+
+    private void build(int from, int to) {
+        while (to - from > 1) {
+            double minX = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY;
+            double minY = Double.POSITIVE_INFINITY;
+            double maxY = Double.NEGATIVE_INFINITY;
+            for (int i = from; i < to; i++) {
+                minX = Math.min(minX, xs[i]);
+                maxX = Math.max(maxX, xs[i]);
+                minY = Math.min(minY, ys[i]);
+                maxY = Math.max(maxY, ys[i]);
+            }
+            byte axis = maxX - minX >= maxY - minY ? AXIS_X : AXIS_Y;
+            int mid = (from + to) >>> 1;
+            select(axis == AXIS_X ? xs : ys, from, to - 1, mid);
+            axes[mid] = axis;
+
+            // recurse into the smaller half, loop on the larger one
+            if (mid - from < to - mid - 1) {
+                build(from, mid);
+                from = mid + 1;
+            } else {
+                build(mid + 1, to);
+                to = mid;
+            }
+        }
+    }
+
+    /**
+     * Quickselect by the key array: places k-th point in its
+     * sorted position, keeping the point arrays in lockstep.
+     */
+    private void select(double[] keys, int left, int right, int k) {
+        while (right > left) {
+            double pivot = keys[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (keys[i] < pivot) {
+                    i++;
+                }
+                while (keys[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        double x = xs[i];
+        xs[i] = xs[j];
+        xs[j] = x;
+        double y = ys[i];
+        ys[i] = ys[j];
+        ys[j] = y;
+        double value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+
+    /**
+     * Finds up to k points nearest to (x, y) within the max distance.
+     * Found points are written to the neighbors buffer, which is
+     * reset before the search.
+     */
+    public void nearest(double x, double y, double maxDistance, Neighbors neighbors) {
+        Check.notNull(neighbors);
+
+        neighbors.reset(maxDistance * maxDistance);
+        if (neighbors.capacity() > 0) {
+            search(0, xs.length, x, y, neighbors);
+        }
+    }
+
+    private void search(int from, int to, double x, double y, Neighbors neighbors) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            double dx = x - xs[mid];
+            double dy = y - ys[mid];
+            neighbors.offer(mid, dx * dx + dy * dy);
+
+            double d = axes[mid] == AXIS_X ? dx : dy;
+            int nearFrom = d < 0 ? from : mid + 1;
+            int nearTo = d < 0 ? mid : to;
+            int farFrom = d < 0 ? mid + 1 : from;
+            int farTo = d < 0 ? to : mid;
+
+            search(nearFrom, nearTo, x, y, neighbors);
+            if (d * d >= neighbors.bound()) {
+                return;
+            }
+            from = farFrom;
+            to = farTo;
+        }
+    }
+
+    /**
+     * Bounded max-heap of the nearest points found by a search.
+     */
+    public static final class Neighbors {
+
+        private final int[] indices;
+        private final double[] distancesSq;
+        private int size;
+        private double maxDistanceSq;
+
+        public Neighbors(int capacity) {
+            Check.condition(capacity >= 0, "Negative capacity");
+
+            this.indices = new int[capacity];
+            this.distancesSq = new double[capacity];
+        }
+
+        public int capacity() {
+            return indices.length;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Index of the i-th found point in the tree.
+         * Found points are not ordered by distance.
+         */
+        public int index(int i) {
+            return indices[i];
+        }
+
+        public double distanceSq(int i) {
+            return distancesSq[i];
+        }
+
+        private void reset(double maxDistanceSq) {
+            this.size = 0;
+            this.maxDistanceSq = maxDistanceSq;
+        }
+
+        // squared distance a point should be closer than
+        // to be accepted
+        private double bound() {
+            return size < indices.length ? maxDistanceSq : distancesSq[0];
+        }
+
+        private void offer(int index, double distanceSq) {
+            if (size < indices.length) {
+                if (distanceSq > maxDistanceSq) {
+                    return;
+                }
+                // sift up
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (distancesSq[parent] >= distanceSq) {
+                        break;
+                    }
+                    indices[i] = indices[parent];
+                    distancesSq[i] = distancesSq[parent];
+                    i = parent;
+                }
+                indices[i] = index;
+                distancesSq[i] = distanceSq;
+            } else if (distanceSq < distancesSq[0]) {
+                // replace the farthest point and sift down
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= size) {
+                        break;
+                    }
+                    if (child + 1 < size && distancesSq[child + 1] > distancesSq[child]) {
+                        child++;
+                    }
+                    if (distancesSq[child] <= distanceSq) {
+                        break;
+                    }
+                    indices[i] = indices[child];
+                    distancesSq[i] = distancesSq[child];
+                    i = child;
+                }
+                indices[i] = index;
+                distancesSq[i] = distanceSq;
+            }
+        }
+    }
+}
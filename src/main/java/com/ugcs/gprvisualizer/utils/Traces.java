@@ -1,14 +1,18 @@
 package com.ugcs.gprvisualizer.utils;
 
 import com.github.thecoldwine.sigrun.common.ext.LatLon;
+import com.github.thecoldwine.sigrun.common.ext.SampleStore;
 import com.github.thecoldwine.sigrun.common.ext.SgyFile;
 import com.github.thecoldwine.sigrun.common.ext.Trace;
 import com.github.thecoldwine.sigrun.common.ext.TraceKey;
 import com.ugcs.gprvisualizer.app.meta.SampleRange;
 import com.ugcs.gprvisualizer.app.parcers.GeoData;
+import org.jspecify.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public final class Traces {
@@ -47,10 +51,16 @@ public final class Traces {
                 ? range.getMax().intValue() + 1
                 : traces.size(); // exclusive
 
+        // traces sharing a store are bound to a single store copy
+        Map<SampleStore, SampleStore> storeCopies = new IdentityHashMap<>();
+
         List<Trace> newTraces = new ArrayList<>(toIndex - fromIndex);
         for (int i = fromIndex; i < toIndex; i++) {
             Trace trace = traces.get(i);
-            Trace newTrace = trace.copy();
+            SampleStore store = trace.getSampleStore();
+            Trace newTrace = store != null
+                    ? trace.copy(storeCopies.computeIfAbsent(store, SampleStore::copy))
+                    : trace.copy();
             // update trace index
             newTrace.setIndex(newTraces.size());
             newTraces.add(newTrace);
@@ -62,6 +72,23 @@ public final class Traces {
         return copy(traces, null);
     }
 
+    /**
+     * Returns a store holding samples of all given traces
+     * or null when traces keep their samples resident.
+     */
+    @Nullable
+    public static SampleStore getSampleStore(List<Trace> traces) {
+        SampleStore store = null;
+        for (Trace trace : Nulls.toEmpty(traces)) {
+            SampleStore traceStore = trace.getSampleStore();
+            if (traceStore == null || (store != null && store != traceStore)) {
+                return null;
+            }
+            store = traceStore;
+        }
+        return store;
+    }
+
     public static void fillMissingLatLon(List<Trace> traces) {
         if (traces == null) {
             return;
@@ -0,0 +1,57 @@
+package com.github.thecoldwine.sigrun.common.ext;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FlatSampleStoreTest {
+
+    private static SampleSource source(int... numSamples) {
+        return new SampleSource() {
+            @Override
+            public int numTraces() {
+                return numSamples.length;
+            }
+
+            @Override
+            public int numSamples(int trace) {
+                return numSamples[trace];
+            }
+
+            @Override
+            public void read(int trace, float[] dst, int offset) {
+                for (int i = 0; i < numSamples[trace]; i++) {
+                    dst[offset + i] = 100 * trace + i;
+                }
+            }
+        };
+    }
+
+    @Test
+    public void testLoad() {
+        FlatSampleStore store = FlatSampleStore.load(source(3, 0, 2));
+
+        assertEquals(3, store.numTraces());
+        assertEquals(3, store.numSamples(0));
+        assertEquals(0, store.numSamples(1));
+        assertEquals(2, store.numSamples(2));
+        assertEquals(2f, store.getSample(0, 2));
+        assertEquals(201f, store.getSample(2, 1));
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        FlatSampleStore store = FlatSampleStore.load(source(2, 2));
+        FlatSampleStore copy = store.copy();
+
+        copy.setSample(1, 0, -1f);
+        copy.setEdge(0, 1, (byte)3);
+        assertEquals(100f, store.getSample(1, 0));
+        assertEquals(0, store.getEdge(0, 1));
+
+        store.transform(2f, 1f);
+        assertEquals(201f, store.getSample(1, 0));
+        assertEquals(-1f, copy.getSample(1, 0));
+        assertEquals(1f, copy.getSample(0, 1));
+    }
+}
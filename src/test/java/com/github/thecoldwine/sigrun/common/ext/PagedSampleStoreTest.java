@@ -0,0 +1,66 @@
+package com.github.thecoldwine.sigrun.common.ext;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PagedSampleStoreTest {
+
+    private static final int NUM_SAMPLES = 8;
+
+    // size of a page in the cache
+    private static final long PAGE_SIZE = 6L * NUM_SAMPLES * PagedSampleStore.TRACES_PER_PAGE;
+
+    private static SampleSource source(int numTraces) {
+        return new SampleSource() {
+            @Override
+            public int numTraces() {
+                return numTraces;
+            }
+
+            @Override
+            public int numSamples(int trace) {
+                return NUM_SAMPLES;
+            }
+
+            @Override
+            public void read(int trace, float[] dst, int offset) {
+                for (int i = 0; i < NUM_SAMPLES; i++) {
+                    dst[offset + i] = 100 * trace + i + 1;
+                }
+            }
+        };
+    }
+
+    @Test
+    public void testEdgesDoNotPinPages() {
+        SamplePageCache cache = new SamplePageCache(PAGE_SIZE);
+        PagedSampleStore store = new PagedSampleStore(source(4 * PagedSampleStore.TRACES_PER_PAGE), cache);
+
+        for (int i = 0; i < store.numTraces(); i++) {
+            store.setEdge(i, 1, (byte) 1);
+            store.setGood(i, 1, (byte) 2);
+            assertTrue(cache.getSize() <= PAGE_SIZE);
+        }
+        // evicted pages are loaded with the set edges and marks
+        for (int i = 0; i < store.numTraces(); i++) {
+            assertEquals(1, store.getEdge(i, 1));
+            assertEquals(2, store.getGood(i, 1));
+        }
+        assertEquals(101f, store.getSample(1, 0));
+    }
+
+    @Test
+    public void testModifiedSamplesStayResident() {
+        SamplePageCache cache = new SamplePageCache(PAGE_SIZE);
+        PagedSampleStore store = new PagedSampleStore(source(4 * PagedSampleStore.TRACES_PER_PAGE), cache);
+
+        store.setSample(0, 1, -5f);
+        for (int i = 0; i < store.numTraces(); i++) {
+            store.getSample(i, 0);
+        }
+        assertEquals(-5f, store.getSample(0, 1));
+        assertEquals(1f, store.getSample(0, 0));
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.thecoldwine.sigrun.common.ext;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SampleStatisticsTest {
+
+    private static List<Trace> traces(int numTraces) {
+        Random random = new Random(42);
+        List<Trace> traces = new ArrayList<>(numTraces);
+        for (int i = 0; i < numTraces; i++) {
+            float[] samples = new float[1 + random.nextInt(200)];
+            for (int j = 0; j < samples.length; j++) {
+                samples[j] = 1000f * random.nextFloat() - 200f;
+            }
+            traces.add(new Trace(null, samples, null));
+        }
+        return traces;
+    }
+
+    @Test
+    public void testCompute() {
+        // spans several blocks
+        List<Trace> traces = traces(1000);
+
+        double avg = traces.stream()
+                .flatMapToDouble(t -> IntStream
+                        .range(t.numSamples() / 2, t.numSamples())
+                        .mapToDouble(t::getSample))
+                .average()
+                .getAsDouble();
+        double dispersion = traces.stream()
+                .flatMapToDouble(t -> IntStream
+                        .range(0, t.numSamples())
+                        .mapToDouble(i -> Math.abs(t.getSample(i) - (float)avg)))
+                .average()
+                .getAsDouble();
+
+        SampleStatistics statistics = SampleStatistics.compute(traces);
+        assertEquals(avg, statistics.getAvg(), 1e-3);
+        assertEquals(dispersion, statistics.getDispersion(), 1e-3);
+    }
+
+    @Test
+    public void testNormalizeBack() {
+        List<Trace> traces = traces(300);
+        float sample = traces.get(7).getSample(0);
+
+        SampleNormalizer normalizer = new SampleNormalizer();
+        normalizer.normalize(traces);
+        assertEquals(500f, SampleStatistics.compute(traces).getDispersion(), 1e-2);
+
+        normalizer.back(traces);
+        assertEquals(sample, traces.get(7).getSample(0), 1e-3);
+    }
+}
@@ -0,0 +1,137 @@
+package com.github.thecoldwine.sigrun.converters;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the bulk sample decoding compared to the per-value
+ * decoding used before. Run from the IDE or with
+ * {@code java -cp <test classpath> ...ConvertersBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConvertersBenchmark {
+
+    @Param({"IBM", "IEEE", "TC2", "TC4"})
+    private String format;
+
+    @Param({"512", "4096"})
+    private int numSamples;
+
+    private SeismicValuesConverter converter;
+
+    private byte[] bytes;
+
+    private ByteBuffer direct;
+
+    private float[] values;
+
+    @Setup
+    public void setup() {
+        converter = switch (format) {
+            case "IBM" -> new IBM360Converter();
+            case "IEEE" -> new IEEEConverter();
+            case "TC2" -> new TC2BIConverter();
+            case "TC4" -> new TC4BIConverter();
+            default -> throw new IllegalArgumentException(format);
+        };
+        int sampleSize = format.equals("TC2")
+                ? SeismicValuesConverter.SHORT_SIZE
+                : SeismicValuesConverter.INT_SIZE;
+
+        bytes = new byte[numSamples * sampleSize];
+        new Random(42).nextBytes(bytes);
+        direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        values = new float[numSamples];
+    }
+
+    @Benchmark
+    public float[] perValue() {
+        return switch (format) {
+            case "IBM" -> legacyIbm(bytes);
+            case "IEEE" -> legacyIeee(bytes);
+            case "TC2" -> legacyTc2(bytes);
+            default -> legacyTc4(bytes);
+        };
+    }
+
+    @Benchmark
+    public float[] bulkHeap() {
+        return converter.convert(bytes);
+    }
+
+    @Benchmark
+    public float[] bulkDirect() {
+        converter.convertInto(direct.duplicate(), values, 0);
+        return values;
+    }
+
+    // per-value implementations replaced by the bulk decoding
+
+    private static float[] legacyIbm(byte[] bytes) {
+        float[] result = new float[bytes.length / 4];
+        ByteBuffer bits = ByteBuffer.wrap(bytes);
+        for (int i = 0; i < result.length; i++) {
+            result[i] = Float.intBitsToFloat(IBM360Converter.convert(bits.getInt()));
+        }
+        return result;
+    }
+
+    private static float[] legacyIeee(byte[] bytes) {
+        float[] result = new float[bytes.length / 4];
+        ByteBuffer bits = ByteBuffer.wrap(bytes);
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bits.getFloat() * 10000;
+        }
+        return result;
+    }
+
+    private static float[] legacyTc2(byte[] bytes) {
+        float[] result = new float[bytes.length / 2];
+        ByteBuffer bits = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bits.getShort();
+        }
+        return result;
+    }
+
+    private static float[] legacyTc4(byte[] bytes) {
+        float[] result = new float[bytes.length / 4];
+        ByteBuffer bits = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        bits.getInt();
+        for (int i = 1; i < result.length; i++) {
+            result[i] = bits.getInt();
+        }
+        return result;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ConvertersBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
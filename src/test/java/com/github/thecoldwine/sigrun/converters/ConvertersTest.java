@@ -0,0 +1,60 @@
+package com.github.thecoldwine.sigrun.converters;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ConvertersTest {
+
+    @Test
+    public void testIbmKnownValues() {
+        ByteBuffer bytes = ByteBuffer.allocate(16)
+                .putInt(0x42640000) // 100.0
+                .putInt(0xC276A000) // -118.625
+                .putInt(0x41100000) // 1.0
+                .putInt(0x00000000);
+        float[] values = new IBM360Converter().convert(bytes.array());
+        assertArrayEquals(new float[] {100f, -118.625f, 1f, 0f}, values);
+    }
+
+    @Test
+    public void testConvertIntoDirectBuffer() {
+        ByteBuffer bytes = ByteBuffer.allocateDirect(10).order(ByteOrder.LITTLE_ENDIAN);
+        for (short v : new short[] {1, -2, 300, Short.MIN_VALUE, Short.MAX_VALUE}) {
+            bytes.putShort(v);
+        }
+        bytes.flip();
+        // byte order of the source does not matter
+        bytes.order(ByteOrder.BIG_ENDIAN);
+
+        float[] values = new float[7];
+        int n = new TC2BIConverter().convertInto(bytes, values, 2);
+        assertEquals(5, n);
+        assertEquals(10, bytes.position());
+        assertArrayEquals(new float[] {0, 0, 1, -2, 300, Short.MIN_VALUE, Short.MAX_VALUE}, values);
+    }
+
+    @Test
+    public void testTc4SkipsFirstValue() {
+        ByteBuffer bytes = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(7)
+                .putInt(-100_000)
+                .putInt(100_000);
+        float[] values = {5, 5, 5};
+        new TC4BIConverter().convertInto(bytes.flip(), values, 0);
+        assertArrayEquals(new float[] {0, -100_000, 100_000}, values);
+    }
+
+    @Test
+    public void testIeeeScale() {
+        ByteBuffer bytes = ByteBuffer.allocate(8)
+                .putFloat(0.5f)
+                .putFloat(-0.0001f);
+        float[] values = new IEEEConverter().convert(bytes.array());
+        assertArrayEquals(new float[] {0.5f * 10000, -0.0001f * 10000}, values);
+    }
+}
@@ -0,0 +1,85 @@
+package com.ugcs.gprvisualizer.app.parcers;
+
+import com.ugcs.gprvisualizer.app.parcers.csv.CsvParser;
+import com.ugcs.gprvisualizer.app.yaml.Template;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to parse a large MagArrow log, built by repeating the lines
+ * of the test sample. Run from the IDE or with
+ * {@code java -cp <test classpath> ...CsvParserBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CsvParserBenchmark extends BaseParsersTest {
+
+    @Param({"100000"})
+    private int numLines;
+
+    private Template template;
+
+    private Path path;
+
+    @Setup
+    public void setup() throws IOException {
+        String yaml = Files.readString(Paths.get(
+                YamlTestDataFolder + YamlCsvFolder + YamlMagarrowFolder + "MagArrowValidTemplate.yaml"));
+        template = deserializer.load(yaml);
+
+        List<String> lines = Files.readAllLines(Paths.get(
+                CSVTestDataFolder + "MagArrow/MagArrow.csv"));
+        path = Files.createTempFile("magarrow", ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+            writer.write(lines.getFirst());
+            writer.newLine();
+            for (int i = 0; i < numLines; i++) {
+                writer.write(lines.get(1 + i % (lines.size() - 1)));
+                writer.newLine();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    @Benchmark
+    public List<GeoCoordinates> parse() throws IOException {
+        return new CsvParser(template).parse(path.toString());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(CsvParserBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
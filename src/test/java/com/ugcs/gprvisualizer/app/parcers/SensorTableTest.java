@@ -0,0 +1,79 @@
+package com.ugcs.gprvisualizer.app.parcers;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SensorTableTest {
+
+    @Test
+    public void testValueTypes() {
+        SensorTable table = new SensorTable(3);
+        int column = table.addColumn("TMI", "nT");
+        table.put(column, 0, 5);
+        table.put(column, 1, 5.5);
+        table.put(column, 2, null);
+
+        assertEquals(Integer.valueOf(5), table.getNumber(column, 0));
+        assertEquals(Double.valueOf(5.5), table.getNumber(column, 1));
+        assertNull(table.getNumber(column, 2));
+        assertTrue(table.isPresent(column, 2));
+        assertFalse(table.hasValue(column, 2));
+        assertTrue(Double.isNaN(table.getDouble(column, 2)));
+        assertEquals(column, table.addColumn("TMI", "nT"));
+        assertEquals(-1, table.getColumn("Mag"));
+    }
+
+    @Test
+    public void testChangeAndUndo() {
+        SensorTable table = new SensorTable(2);
+        int column = table.addColumn("TMI", "nT");
+        table.put(column, 0, 1.0);
+        table.put(column, 1, 2.0);
+
+        table.setValue(column, 0, 3.0);
+        assertTrue(table.isModified(column, 0));
+        assertFalse(table.isModified(column, 1));
+        assertEquals(3.0, table.getNumber(column, 0));
+        assertEquals(1.0, table.getOriginalNumber(column, 0));
+
+        table.undo(column, 0);
+        assertFalse(table.isModified(column, 0));
+        assertEquals(1.0, table.getNumber(column, 0));
+    }
+
+    @Test
+    public void testFirstValueOfAbsentCellIsOriginal() {
+        SensorTable table = new SensorTable(2);
+        int column = table.addColumn("Line", "");
+        assertFalse(table.isPresent(column, 0));
+
+        table.setValue(column, 0, 1);
+        table.setValue(column, 1, 1);
+        assertFalse(table.isModified(column, 0));
+
+        table.setValue(column, 1, 2);
+        assertFalse(table.isModified(column, 0));
+        assertTrue(table.isModified(column, 1));
+        assertEquals(1, table.getOriginalNumber(column, 1));
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        SensorTable table = new SensorTable();
+        int column = table.addColumn("TMI", "nT");
+        for (int i = 0; i < 100; i++) {
+            table.put(column, table.addRow(), i);
+        }
+
+        SensorTable copy = table.copy();
+        copy.setValue(column, 50, -1);
+        assertEquals(50, table.getNumber(column, 50));
+        assertFalse(table.isModified(column, 50));
+        assertEquals(-1, copy.getNumber(column, 50));
+        assertEquals(100, copy.numRows());
+    }
+}
@@ -0,0 +1,56 @@
+package com.ugcs.gprvisualizer.app.parcers.csv;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LinePatcherTest {
+
+    private static String write(LinePatcher patcher, String line) throws IOException {
+        StringWriter writer = new StringWriter();
+        patcher.write(line, writer);
+        return writer.toString();
+    }
+
+    @Test
+    public void testReplaceFields() throws IOException {
+        LinePatcher patcher = new LinePatcher(",");
+        assertEquals("a,,c", write(patcher, "a,,c"));
+
+        patcher.set(2, "x");
+        patcher.set(0, null);
+        assertEquals(",b,x,d", write(patcher, "a,b,c,d"));
+
+        patcher.set(1, "x");
+        patcher.set(1, "y");
+        assertEquals("a,y,", write(patcher, "a,,"));
+
+        // ignored
+        patcher.set(-1, "x");
+        assertEquals("a,b", write(patcher, "a,b"));
+    }
+
+    @Test
+    public void testPadFields() throws IOException {
+        LinePatcher patcher = new LinePatcher(";");
+        patcher.set(3, "x");
+        assertEquals("a;b;;x", write(patcher, "a;b"));
+
+        patcher.set(1, "x");
+        patcher.set(4, "y");
+        assertEquals("a;x;;;y", write(patcher, "a;b"));
+
+        patcher.set(2, "x");
+        assertEquals(";;x", write(patcher, ""));
+    }
+
+    @Test
+    public void testPatternSeparator() throws IOException {
+        LinePatcher patcher = new LinePatcher("\\s+");
+        patcher.set(1, "x");
+        assertEquals("a  x\tc", write(patcher, "a  b\tc"));
+    }
+}
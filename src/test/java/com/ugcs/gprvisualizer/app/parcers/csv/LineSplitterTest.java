@@ -0,0 +1,42 @@
+package com.ugcs.gprvisualizer.app.parcers.csv;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LineSplitterTest {
+
+    private static void assertSplit(String separator, String line) {
+        String[] expected = line.split(separator);
+        LineSplitter fields = new LineSplitter(separator);
+        fields.split(line);
+        assertEquals(expected.length, fields.size(), line);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], fields.get(i), line);
+        }
+    }
+
+    @Test
+    public void testSameAsStringSplit() {
+        String[] lines = {"", "a", ",", ",,", "a,b", ",a,,b,", "a,,,", "1.5,,2,", " a , b "};
+        for (String line : lines) {
+            assertSplit(",", line);
+            assertSplit(";", line.replace(',', ';'));
+            // regular expressions
+            assertSplit("\\|", line.replace(',', '|'));
+            assertSplit("\\s+", line.replace(',', ' '));
+        }
+    }
+
+    @Test
+    public void testParseInt() {
+        LineSplitter fields = new LineSplitter(",");
+        fields.split("12,-7,3.5,");
+        assertEquals(12, fields.parseInt(0));
+        assertEquals(-7, fields.parseInt(1));
+        assertThrows(NumberFormatException.class, () -> fields.parseInt(2));
+        assertEquals(1, fields.indexOf(2, "."));
+        assertEquals(-1, fields.indexOf(1, "."));
+    }
+}
@@ -2,12 +2,12 @@ package com.ugcs.gprvisualizer.draw;
 
 import com.ugcs.gprvisualizer.event.GriddingParamsSetted;
 import com.ugcs.gprvisualizer.math.IDWInterpolator;
+import com.ugcs.gprvisualizer.math.MinimumCurvatureGridder;
+import com.ugcs.gprvisualizer.math.PointKdTree;
 import edu.mines.jtk.interp.SplinesGridder2;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
-import org.locationtech.jts.geom.Coordinate;
-import org.locationtech.jts.index.kdtree.KdTree;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.PrintWriter;
@@ -100,12 +100,18 @@ class GridInterpolationPerformanceTest {
     /**
      * Creates a KD-tree from test points
      */
-    private KdTree buildKdTree(List<GridLayer.DataPoint> points) {
-        KdTree kdTree = new KdTree();
-        for (GridLayer.DataPoint point : points) {
-            kdTree.insert(new Coordinate(point.longitude(), point.latitude()), point);
+    private PointKdTree buildKdTree(List<GridLayer.DataPoint> points) {
+        int n = points.size();
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            GridLayer.DataPoint point = points.get(i);
+            xs[i] = point.longitude();
+            ys[i] = point.latitude();
+            values[i] = point.value();
         }
-        return kdTree;
+        return new PointKdTree(xs, ys, values);
     }
 
     private static class GridData {
@@ -172,6 +178,85 @@ class GridInterpolationPerformanceTest {
         runPerformanceTest(10000, 200); // 10000 points, 200x200 grid
     }
 
+    @Test
+    void testMinimumCurvatureAgainstSplines() {
+        logSection("MINIMUM CURVATURE VS SPLINES TEST");
+        compareWithSplines(100, 0.05);
+        compareWithSplines(300, 0.05);
+        compareWithSplines(300, 0.01);
+    }
+
+    /**
+     * Grids a smooth surface sampled at a fraction of the cells
+     * and compares errors and wall time of the two gridders.
+     */
+    private void compareWithSplines(int gridSize, double knownFraction) {
+        Random random = new Random(42);
+        float[][] truth = new float[gridSize][gridSize];
+        boolean[][] missing = new boolean[gridSize][gridSize];
+        for (int i = 0; i < gridSize; i++) {
+            for (int j = 0; j < gridSize; j++) {
+                double x = (double) i / gridSize;
+                double y = (double) j / gridSize;
+                truth[i][j] = (float) (Math.sin(3 * x) * Math.cos(4 * y) + x * y);
+                missing[i][j] = random.nextDouble() >= knownFraction;
+            }
+        }
+
+        float[][] gridSplines = maskedCopy(truth, missing);
+        long startSplines = System.nanoTime();
+        SplinesGridder2 splines = new SplinesGridder2();
+        splines.gridMissing(missing, gridSplines);
+        long splinesTime = System.nanoTime() - startSplines;
+
+        float[][] gridCurvature = maskedCopy(truth, missing);
+        long startCurvature = System.nanoTime();
+        MinimumCurvatureGridder curvature = new MinimumCurvatureGridder();
+        curvature.gridMissing(missing, gridCurvature);
+        long curvatureTime = System.nanoTime() - startCurvature;
+
+        double splinesError = rmsError(gridSplines, truth, missing);
+        double curvatureError = rmsError(gridCurvature, truth, missing);
+
+        log(String.format("Grid size: %dx%d, known cells: %.0f%%", gridSize, gridSize, knownFraction * 100));
+        log(String.format("  - Splines: %.2f ms, %d iterations, RMS error %.5f",
+                splinesTime / 1_000_000.0, splines.getIterationCount(), splinesError));
+        log(String.format("  - Minimum curvature: %.2f ms, %d iterations, RMS error %.5f",
+                curvatureTime / 1_000_000.0, curvature.getIterationCount(), curvatureError));
+        log(String.format("  - Minimum curvature/Splines time ratio: %.2f", curvatureTime / (double) splinesTime));
+
+        assertFalse(hasNaNValues(gridCurvature), "Minimum curvature gridding should not produce NaN values");
+        assertTrue(curvatureError <= Math.max(2 * splinesError, 1e-3),
+                String.format("Minimum curvature error (%.5f) should be comparable to splines error (%.5f)",
+                        curvatureError, splinesError));
+    }
+
+    private static float[][] maskedCopy(float[][] grid, boolean[][] missing) {
+        float[][] copy = new float[grid.length][];
+        for (int i = 0; i < grid.length; i++) {
+            copy[i] = new float[grid[i].length];
+            for (int j = 0; j < grid[i].length; j++) {
+                copy[i][j] = missing[i][j] ? 0f : grid[i][j];
+            }
+        }
+        return copy;
+    }
+
+    private static double rmsError(float[][] grid, float[][] truth, boolean[][] missing) {
+        double sum = 0;
+        int count = 0;
+        for (int i = 0; i < grid.length; i++) {
+            for (int j = 0; j < grid[i].length; j++) {
+                if (missing[i][j]) {
+                    double d = grid[i][j] - truth[i][j];
+                    sum += d * d;
+                    count++;
+                }
+            }
+        }
+        return count > 0 ? Math.sqrt(sum / count) : 0;
+    }
+
     @AfterAll
     void printSummary() throws IOException {
         logSection("PERFORMANCE SUMMARY");
@@ -221,7 +306,7 @@ class GridInterpolationPerformanceTest {
 
         // Build KD-tree
         long startKd = System.nanoTime();
-        KdTree kdTree = buildKdTree(points);
+        PointKdTree kdTree = buildKdTree(points);
         long kdTime = System.nanoTime() - startKd;
         System.out.println("[DEBUG_LOG] KD-tree build time: " + kdTime / 1_000_000.0 + " ms");
 
@@ -243,8 +328,7 @@ class GridInterpolationPerformanceTest {
             kdTree,
             2.0,  // power
             4,    // minPoints
-            TEST_AREA_SIZE / gridSize * 5, // maxSearchRadius
-            TEST_AREA_SIZE / gridSize      // initialSearchRadius
+            TEST_AREA_SIZE / gridSize * 5  // maxSearchRadius
         );
 
         float[][] gridIdw = gridData.grid.clone();
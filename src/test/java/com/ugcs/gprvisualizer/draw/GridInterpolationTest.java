@@ -2,9 +2,8 @@ package com.ugcs.gprvisualizer.draw;
 
 import com.ugcs.gprvisualizer.event.GriddingParamsSetted;
 import com.ugcs.gprvisualizer.math.IDWInterpolator;
+import com.ugcs.gprvisualizer.math.PointKdTree;
 import org.junit.jupiter.api.Test;
-import org.locationtech.jts.geom.Coordinate;
-import org.locationtech.jts.index.kdtree.KdTree;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -14,10 +13,23 @@ import static org.junit.jupiter.api.Assertions.*;
 
 class GridInterpolationTest {
 
+    private static PointKdTree buildTree(List<GridLayer.DataPoint> points) {
+        int n = points.size();
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            GridLayer.DataPoint point = points.get(i);
+            xs[i] = point.latitude();
+            ys[i] = point.longitude();
+            values[i] = point.value();
+        }
+        return new PointKdTree(xs, ys, values);
+    }
+
     @Test
     void testIDWInterpolation() {
         // Create test data points in a grid pattern with a missing point in the middle
-        KdTree kdTree = new KdTree();
         List<GridLayer.DataPoint> testValues = new ArrayList<>() {{
             add(new GridLayer.DataPoint(1.0, 1.0, 10.0));
             add(new GridLayer.DataPoint(1.0, 3.0, 20.0));
@@ -25,17 +37,14 @@ class GridInterpolationTest {
             add(new GridLayer.DataPoint(3.0, 3.0, 40.0));
         }};
 
-        for (GridLayer.DataPoint point : testValues) {
-            kdTree.insert(new Coordinate(point.latitude(), point.longitude()), point);
-        }
+        PointKdTree tree = buildTree(testValues);
 
         // Test IDW interpolation with different parameters
         IDWInterpolator interpolator = new IDWInterpolator(
-            kdTree,
+            tree,
             2.0,  // power
             4,    // minPoints
-            3.0,  // maxSearchRadius
-            1.0   // initialSearchRadius
+            3.0   // maxSearchRadius
         );
 
         // Interpolate at the center point (2.0, 2.0)
@@ -47,11 +56,10 @@ class GridInterpolationTest {
 
         // Test with larger power parameter (more weight to closer points)
         IDWInterpolator interpolatorHighPower = new IDWInterpolator(
-            kdTree,
+            tree,
             4.0,  // higher power
             4,    // minPoints
-            3.0,  // maxSearchRadius
-            1.0   // initialSearchRadius
+            3.0   // maxSearchRadius
         );
 
         double interpolatedValueHighPower = interpolatorHighPower.interpolate(2.0, 2.0);
@@ -67,8 +75,6 @@ class GridInterpolationTest {
     @Test
     void testInterpolationWithLargeCellSize() {
         // Create scattered test points
-        KdTree kdTree = new KdTree();
-
         List<GridLayer.DataPoint> testValues = new ArrayList<>() {{
             add(new GridLayer.DataPoint(1.0, 1.0, 10.0));
             add(new GridLayer.DataPoint(1.5, 1.5, 15.0));
@@ -78,17 +84,14 @@ class GridInterpolationTest {
             add(new GridLayer.DataPoint(5.0, 5.0, 50.0));
         }};
 
-        for (GridLayer.DataPoint point : testValues) {
-            kdTree.insert(new Coordinate(point.latitude(), point.longitude()), point);
-        }
+        PointKdTree tree = buildTree(testValues);
 
         // Test interpolation with large cell size
         IDWInterpolator interpolator = new IDWInterpolator(
-            kdTree,
+            tree,
             2.0,  // power
             3,    // minPoints
-            5.0,  // maxSearchRadius (large)
-            2.0   // initialSearchRadius (large)
+            5.0   // maxSearchRadius (large)
         );
 
         // Test points between clusters
@@ -107,8 +110,6 @@ class GridInterpolationTest {
     @Test
     void testCompareInterpolationMethods() {
         // Create test data with large gaps
-        KdTree kdTree = new KdTree();
-
         List<GridLayer.DataPoint> testValues = new ArrayList<>() {{
             add(new GridLayer.DataPoint(1.0, 1.0, 10.0));
             add(new GridLayer.DataPoint(1.0, 9.0, 20.0));
@@ -116,17 +117,14 @@ class GridInterpolationTest {
             add(new GridLayer.DataPoint(9.0, 9.0, 40.0));
         }};
 
-        for (GridLayer.DataPoint point : testValues) {
-            kdTree.insert(new Coordinate(point.latitude(), point.longitude()), point);
-        }
+        PointKdTree tree = buildTree(testValues);
 
         // Initialize IDW interpolator with parameters suitable for large cell sizes
         IDWInterpolator idwInterpolator = new IDWInterpolator(
-            kdTree,
+            tree,
             2.0,  // power
             4,    // minPoints
-            10.0, // maxSearchRadius (large enough to cover gaps)
-            5.0   // initialSearchRadius
+            10.0  // maxSearchRadius (large enough to cover gaps)
         );
         
         // Test points in the large gap
@@ -0,0 +1,146 @@
+package com.ugcs.gprvisualizer.dzt;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import com.github.thecoldwine.sigrun.common.ext.Trace;
+import com.ugcs.gprvisualizer.app.meta.SampleRange;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DztFileTest {
+
+    private static final int HEADER_SIZE = 1024;
+
+    private static final int NUM_CHANNELS = 2;
+
+    private static final int NUM_TRACES = 3;
+
+    // samples per trace, excluding trace index
+    private static final int NUM_SAMPLES = 4;
+
+    private static final int TRACE_SIZE = 2 * (NUM_SAMPLES + 1);
+
+    @TempDir
+    Path tempDir;
+
+    private static float sample(int channel, int trace, int sample) {
+        return 100 * channel + 10 * trace + sample;
+    }
+
+    // 16-bit file with the range of a channel set in its own header
+    private static File writeTwoChannelFile(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer
+                .allocate(NUM_CHANNELS * HEADER_SIZE + NUM_TRACES * NUM_CHANNELS * TRACE_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        for (int channel = 0; channel < NUM_CHANNELS; channel++) {
+            int position = channel * HEADER_SIZE;
+            buffer.putShort(position, (short)0x00ff); // rh_tag
+            buffer.putShort(position + 2, (short)HEADER_SIZE); // rh_data
+            buffer.putShort(position + 4, (short)(NUM_SAMPLES + 1)); // rh_nsamp
+            buffer.putShort(position + 6, (short)16); // rh_bits
+            buffer.putFloat(position + 26, 10f * (channel + 1)); // rhf_range
+            buffer.putShort(position + 52, (short)NUM_CHANNELS); // rh_nchan
+        }
+        buffer.position(NUM_CHANNELS * HEADER_SIZE);
+        for (int i = 0; i < NUM_TRACES; i++) {
+            for (int channel = 0; channel < NUM_CHANNELS; channel++) {
+                buffer.putShort((short)(i + 32767));
+                for (int j = 0; j < NUM_SAMPLES; j++) {
+                    buffer.putShort((short)(sample(channel, i, j) + 32767));
+                }
+            }
+        }
+        Files.write(path, buffer.array());
+        return path.toFile();
+    }
+
+    @Test
+    public void testOpenSecondChannel() throws IOException {
+        File file = writeTwoChannelFile(tempDir.resolve("two-channels.dzt"));
+
+        DztFile dztFile = new DztFile(1);
+        dztFile.open(file);
+
+        assertEquals(NUM_CHANNELS, dztFile.getNumChannels());
+        assertEquals(20, dztFile.getSampleInterval());
+
+        float avg = 111.5f;
+        assertEquals(avg, (float)dztFile.getMetaFile().getSampleAvg());
+
+        List<Trace> traces = dztFile.getTraces();
+        assertEquals(NUM_TRACES, traces.size());
+        for (int i = 0; i < NUM_TRACES; i++) {
+            Trace trace = traces.get(i);
+            assertEquals(NUM_SAMPLES, trace.numSamples());
+            for (int j = 0; j < NUM_SAMPLES; j++) {
+                assertEquals(sample(1, i, j) - avg, trace.getSample(j));
+            }
+        }
+    }
+
+    @Test
+    public void testSaveSecondChannel() throws IOException {
+        File file = writeTwoChannelFile(tempDir.resolve("two-channels.dzt"));
+
+        DztFile dztFile = new DztFile(1);
+        dztFile.open(file);
+
+        File saved = tempDir.resolve("second-channel.dzt").toFile();
+        dztFile.save(saved);
+
+        ByteBuffer buffer = ByteBuffer
+                .wrap(Files.readAllBytes(saved.toPath()))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(HEADER_SIZE + NUM_TRACES * TRACE_SIZE, buffer.capacity());
+        assertEquals(1, buffer.getShort(52)); // rh_nchan
+        assertEquals(NUM_SAMPLES + 1, buffer.getShort(4)); // rh_nsamp
+        assertEquals(20f, buffer.getFloat(26)); // rhf_range
+
+        DztFile savedFile = new DztFile();
+        savedFile.open(saved);
+        assertEquals(1, savedFile.getNumChannels());
+        assertEquals(20, savedFile.getSampleInterval());
+        assertEquals(NUM_TRACES, savedFile.numTraces());
+    }
+
+    @Test
+    public void testReopenCroppedThroughCache() throws IOException {
+        File file = writeTwoChannelFile(tempDir.resolve("two-channels.dzt"));
+
+        // crop samples in the meta
+        DztFile dztFile = new DztFile(1);
+        dztFile.open(file);
+        for (Trace trace : dztFile.getTraces()) {
+            trace.setSampleRange(new SampleRange(1, 3));
+        }
+        dztFile.saveMeta();
+
+        // first open writes the cache, second one reads it
+        for (int k = 0; k < 2; k++) {
+            dztFile = new DztFile(1);
+            dztFile.setTraceCacheEnabled(true);
+            dztFile.open(file);
+        }
+        assertTrue(Files.exists(dztFile.getTraceCachePath()));
+
+        float avg = 111.5f;
+        List<Trace> traces = dztFile.getTraces();
+        assertEquals(NUM_TRACES, traces.size());
+        for (int i = 0; i < NUM_TRACES; i++) {
+            Trace trace = traces.get(i);
+            assertEquals(2, trace.numSamples());
+            for (int j = 0; j < 2; j++) {
+                assertEquals(sample(1, i, j + 1) - avg, trace.getSample(j));
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.ugcs.gprvisualizer.math;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DistanceTransformTest {
+
+    @Test
+    public void testSquaredDistances() {
+        Random random = new Random(42);
+        int nx = 57;
+        int ny = 31;
+        boolean[][] features = new boolean[nx][ny];
+        for (int i = 0; i < nx; i++) {
+            for (int j = 0; j < ny; j++) {
+                features[i][j] = random.nextDouble() < 0.02;
+            }
+        }
+
+        float[][] distances = DistanceTransform.squaredDistances(features);
+        for (int i = 0; i < nx; i++) {
+            for (int j = 0; j < ny; j++) {
+                double expected = Double.POSITIVE_INFINITY;
+                for (int fi = 0; fi < nx; fi++) {
+                    for (int fj = 0; fj < ny; fj++) {
+                        if (features[fi][fj]) {
+                            expected = Math.min(expected, (i - fi) * (i - fi) + (j - fj) * (j - fj));
+                        }
+                    }
+                }
+                assertEquals(expected, distances[i][j], 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void testWithinDistanceIsCircle() {
+        boolean[][] features = new boolean[21][21];
+        features[10][10] = true;
+
+        boolean[][] within = DistanceTransform.withinDistance(features, 5);
+        assertTrue(within[15][10]);
+        assertTrue(within[13][14]);
+        // corner of the bounding square is outside the circle
+        assertFalse(within[15][15]);
+        assertFalse(within[16][10]);
+    }
+
+    @Test
+    public void testNoFeatures() {
+        boolean[][] within = DistanceTransform.withinDistance(new boolean[4][3], 100);
+        for (boolean[] row : within) {
+            for (boolean value : row) {
+                assertFalse(value);
+            }
+        }
+    }
+}